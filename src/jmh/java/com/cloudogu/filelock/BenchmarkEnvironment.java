@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import sonia.scm.api.v2.resources.ScmPathInfoStore;
+import sonia.scm.cache.MapCacheManager;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.Command;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.FileLockCommandBuilder;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+import sonia.scm.store.InMemoryConfigurationStoreFactory;
+import sonia.scm.user.DisplayUser;
+import sonia.scm.user.User;
+import sonia.scm.user.UserDisplayManager;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * In-memory stand-ins for the services of SCM-Manager used by the benchmarks. Mocks are only
+ * used for calls outside the measured hot paths or are created as stub only mocks.
+ */
+final class BenchmarkEnvironment {
+
+  static final String USER = "trillian";
+
+  private BenchmarkEnvironment() {
+  }
+
+  static Subject login() {
+    DefaultSecurityManager securityManager = new DefaultSecurityManager(new AllPermissionsRealm());
+    SecurityUtils.setSecurityManager(securityManager);
+    Subject subject = new Subject.Builder(securityManager).buildSubject();
+    subject.login(new UsernamePasswordToken(USER, "secret"));
+    ThreadContext.bind(subject);
+    return subject;
+  }
+
+  static void logout() {
+    SecurityUtils.getSubject().logout();
+    ThreadContext.unbindSubject();
+    ThreadContext.unbindSecurityManager();
+  }
+
+  static Repository repository(int number) {
+    return new Repository("id-" + number, "git", "hitchhiker", "HeartOfGold-" + number);
+  }
+
+  /**
+   * Creates locks for files distributed over directories of 100 files each. Every tenth lock
+   * belongs to the benchmark user, the others to one of the given number of users.
+   */
+  static List<FileLock> locks(int count, int users) {
+    List<FileLock> locks = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String userId = i % 10 == 0 ? USER : "user-" + (i % users);
+      locks.add(new FileLock(path(i), "lock-" + i, userId, Instant.ofEpochSecond(1_600_000_000L + i)));
+    }
+    return locks;
+  }
+
+  static String path(int number) {
+    return "assets/dir-" + (number / 100) + "/file-" + number + ".psd";
+  }
+
+  static RepositoryServiceFactory serviceFactory(List<FileLock> locks) {
+    RepositoryServiceFactory serviceFactory = mock(RepositoryServiceFactory.class, withSettings().stubOnly());
+    RepositoryService service = mock(RepositoryService.class, withSettings().stubOnly());
+    FileLockCommandBuilder lockCommand = mock(FileLockCommandBuilder.class, withSettings().stubOnly());
+    when(serviceFactory.create(any(Repository.class))).thenReturn(service);
+    when(service.isSupported(Command.FILE_LOCK)).thenReturn(true);
+    when(service.getLockCommand()).thenReturn(lockCommand);
+    when(lockCommand.getAll()).thenReturn(locks);
+    return serviceFactory;
+  }
+
+  static FileLockMetrics metrics() {
+    return new FileLockMetrics(new SimpleMeterRegistry());
+  }
+
+  static RepositoryConfigStore configStore() {
+    return new RepositoryConfigStore(new InMemoryConfigurationStoreFactory(), new MapCacheManager());
+  }
+
+  static ScmPathInfoStore scmPathInfoStore() {
+    ScmPathInfoStore scmPathInfoStore = new ScmPathInfoStore();
+    scmPathInfoStore.set(() -> URI.create("/scm/api/"));
+    return scmPathInfoStore;
+  }
+
+  static UserDisplayManager userDisplayManager() {
+    UserDisplayManager userDisplayManager = mock(UserDisplayManager.class, withSettings().stubOnly());
+    when(userDisplayManager.get(anyString())).thenAnswer(invocation -> {
+      String userId = invocation.getArgument(0);
+      return Optional.of(DisplayUser.from(new User(userId, "Display " + userId, null)));
+    });
+    return userDisplayManager;
+  }
+
+  static FileLockMapper mapper(ScmPathInfoStore scmPathInfoStore) {
+    FileLockMapperImpl mapper = new FileLockMapperImpl();
+    mapper.setScmPathInfoStoreProvider(() -> scmPathInfoStore);
+    mapper.setUserDisplayManager(userDisplayManager());
+    return mapper;
+  }
+
+  private static class AllPermissionsRealm extends AuthorizingRealm {
+
+    @Override
+    protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+      SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+      info.addStringPermission("*");
+      return info;
+    }
+
+    @Override
+    protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+      return new SimpleAuthenticationInfo(token.getPrincipal(), token.getCredentials(), getName());
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import de.otto.edison.hal.HalRepresentation;
+import org.openjdk.jmh.infra.Blackhole;
+import sonia.scm.api.v2.resources.HalAppender;
+
+import java.util.List;
+
+/**
+ * Appender which hands everything to the blackhole, so that the enrichers can not be
+ * optimized away.
+ */
+class BlackholeAppender implements HalAppender {
+
+  private final Blackhole blackhole;
+
+  BlackholeAppender(Blackhole blackhole) {
+    this.blackhole = blackhole;
+  }
+
+  @Override
+  public void appendLink(String rel, String href) {
+    blackhole.consume(href);
+  }
+
+  @Override
+  public LinkArrayBuilder linkArrayBuilder(String rel) {
+    return new LinkArrayBuilder() {
+      @Override
+      public LinkArrayBuilder append(String name, String href) {
+        blackhole.consume(href);
+        return this;
+      }
+
+      @Override
+      public void build() {
+        // the links have already been consumed
+      }
+    };
+  }
+
+  @Override
+  public void appendEmbedded(String rel, HalRepresentation embeddedItem) {
+    blackhole.consume(embeddedItem);
+  }
+
+  @Override
+  public void appendEmbedded(String rel, List<HalRepresentation> embeddedItems) {
+    blackhole.consume(embeddedItems);
+  }
+}
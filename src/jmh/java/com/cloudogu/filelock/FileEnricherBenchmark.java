@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import sonia.scm.api.v2.resources.HalEnricherContext;
+import sonia.scm.api.v2.resources.ScmPathInfoStore;
+import sonia.scm.repository.FileObject;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.api.FileLock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Enriches every file of a directory listing, like the source view does for one request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileEnricherBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  private int files;
+
+  private ScmPathInfoStore scmPathInfoStore;
+  private FileLockRequestContext requestContext;
+  private FileEnricher enricher;
+  private List<HalEnricherContext> contexts;
+
+  @Setup
+  public void setUp() {
+    BenchmarkEnvironment.login();
+    Repository repository = BenchmarkEnvironment.repository(1);
+    scmPathInfoStore = BenchmarkEnvironment.scmPathInfoStore();
+
+    RepositoryManager repositoryManager = mock(RepositoryManager.class, withSettings().stubOnly());
+    when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+
+    // every tenth file of the listing is locked
+    FileLockMetrics metrics = BenchmarkEnvironment.metrics();
+    FileLockIndex index = new FileLockIndex(BenchmarkEnvironment.serviceFactory(lockEveryTenthFile()), metrics, new UserFileLocks(), new LockStatistics());
+    enricher = new FileEnricher(
+      index,
+      () -> requestContext,
+      BenchmarkEnvironment.mapper(scmPathInfoStore),
+      repositoryManager,
+      BenchmarkEnvironment.configStore(),
+      metrics
+    );
+
+    contexts = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      FileObject fileObject = new FileObject();
+      fileObject.setPath(BenchmarkEnvironment.path(i));
+      contexts.add(HalEnricherContext.of(repository.getNamespaceAndName(), fileObject));
+    }
+  }
+
+  private List<FileLock> lockEveryTenthFile() {
+    List<FileLock> locks = new ArrayList<>();
+    for (FileLock lock : BenchmarkEnvironment.locks(files, 20)) {
+      if (lock.getId().endsWith("0")) {
+        locks.add(lock);
+      }
+    }
+    return locks;
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkEnvironment.logout();
+  }
+
+  @Benchmark
+  public void enrichDirectory(Blackhole blackhole) {
+    requestContext = new FileLockRequestContext(() -> scmPathInfoStore);
+    BlackholeAppender appender = new BlackholeAppender(blackhole);
+    for (HalEnricherContext context : contexts) {
+      enricher.enrich(context, appender);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.jboss.resteasy.mock.MockHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import sonia.scm.api.v2.resources.ScmPathInfoStore;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.web.RestDispatcher;
+
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Maps and serves the lock list of a single repository with many locks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileLockListBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  private int locks;
+
+  private Repository repository;
+  private List<FileLock> fileLocks;
+  private FileLockMapper mapper;
+  private RestDispatcher dispatcher;
+
+  @Setup
+  public void setUp() {
+    BenchmarkEnvironment.login();
+    repository = BenchmarkEnvironment.repository(1);
+    fileLocks = BenchmarkEnvironment.locks(locks, 50);
+    ScmPathInfoStore scmPathInfoStore = BenchmarkEnvironment.scmPathInfoStore();
+    mapper = BenchmarkEnvironment.mapper(scmPathInfoStore);
+
+    RepositoryManager repositoryManager = mock(RepositoryManager.class, withSettings().stubOnly());
+    when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+
+    FileLockMetrics metrics = BenchmarkEnvironment.metrics();
+    FileLockIndex index = new FileLockIndex(BenchmarkEnvironment.serviceFactory(fileLocks), metrics, new UserFileLocks(), new LockStatistics());
+    FileLockResource resource = new FileLockResource(
+      BenchmarkEnvironment.serviceFactory(fileLocks), repositoryManager, index, mapper, metrics,
+      new FileLockBroadcaster(BenchmarkEnvironment.userDisplayManager())
+    );
+    dispatcher = new RestDispatcher();
+    dispatcher.addSingletonResource(resource);
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkEnvironment.logout();
+  }
+
+  @Benchmark
+  public Object mapAll() {
+    return mapper.mapAll(repository, fileLocks);
+  }
+
+  @Benchmark
+  public Object getAll() throws URISyntaxException {
+    return invoke("");
+  }
+
+  @Benchmark
+  public Object getFirstPage() throws URISyntaxException {
+    return invoke("?pageSize=100");
+  }
+
+  private MockHttpResponse invoke(String query) throws URISyntaxException {
+    MockHttpRequest request = MockHttpRequest.get(
+      "/v2/file-lock/" + repository.getNamespace() + "/" + repository.getName() + query
+    );
+    MockHttpResponse response = new MockHttpResponse();
+    dispatcher.invoke(request, response);
+    return response;
+  }
+}
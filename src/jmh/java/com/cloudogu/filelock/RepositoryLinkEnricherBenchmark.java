@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import sonia.scm.api.v2.resources.HalEnricherContext;
+import sonia.scm.api.v2.resources.ScmPathInfoStore;
+import sonia.scm.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enriches a page of the repository overview.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryLinkEnricherBenchmark {
+
+  @Param({"100", "1000"})
+  private int repositories;
+
+  private ScmPathInfoStore scmPathInfoStore;
+  private FileLockRequestContext requestContext;
+  private RepositoryLinkEnricher enricher;
+  private List<HalEnricherContext> contexts;
+
+  @Setup
+  public void setUp() {
+    BenchmarkEnvironment.login();
+    scmPathInfoStore = BenchmarkEnvironment.scmPathInfoStore();
+    enricher = new RepositoryLinkEnricher(
+      () -> requestContext,
+      new FileLockSupport(BenchmarkEnvironment.serviceFactory(List.of())),
+      BenchmarkEnvironment.configStore(),
+      BenchmarkEnvironment.metrics()
+    );
+
+    contexts = new ArrayList<>(repositories);
+    for (int i = 0; i < repositories; i++) {
+      Repository repository = BenchmarkEnvironment.repository(i);
+      contexts.add(HalEnricherContext.of(repository));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkEnvironment.logout();
+  }
+
+  @Benchmark
+  public void enrichRepositories(Blackhole blackhole) {
+    requestContext = new FileLockRequestContext(() -> scmPathInfoStore);
+    BlackholeAppender appender = new BlackholeAppender(blackhole);
+    for (HalEnricherContext context : contexts) {
+      enricher.enrich(context, appender);
+    }
+  }
+}
@@ -16,21 +16,19 @@
 
 package com.cloudogu.filelock;
 
+import com.google.common.base.Strings;
 import sonia.scm.api.v2.resources.Enrich;
 import sonia.scm.api.v2.resources.HalAppender;
 import sonia.scm.api.v2.resources.HalEnricher;
 import sonia.scm.api.v2.resources.HalEnricherContext;
-import sonia.scm.api.v2.resources.ScmPathInfoStore;
 import sonia.scm.plugin.Extension;
+import sonia.scm.repository.BrowserResult;
 import sonia.scm.repository.FileObject;
 import sonia.scm.repository.NamespaceAndName;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryManager;
 import sonia.scm.repository.RepositoryPermissions;
-import sonia.scm.repository.api.Command;
 import sonia.scm.repository.api.FileLock;
-import sonia.scm.repository.api.RepositoryService;
-import sonia.scm.repository.api.RepositoryServiceFactory;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
@@ -40,57 +38,81 @@ import java.util.Optional;
 @Enrich(FileObject.class)
 public class FileEnricher implements HalEnricher {
 
-  private final Provider<ScmPathInfoStore> scmPathInfoStore;
-  private final RepositoryServiceFactory serviceFactory;
+  private final FileLockIndex index;
+  private final Provider<FileLockRequestContext> requestContext;
   private final FileLockMapper mapper;
   private final RepositoryManager repositoryManager;
   private final RepositoryConfigStore configStore;
+  private final FileLockMetrics metrics;
 
   @Inject
-  public FileEnricher(Provider<ScmPathInfoStore> scmPathInfoStore, RepositoryServiceFactory serviceFactory, FileLockMapper mapper, RepositoryManager repositoryManager, RepositoryConfigStore configStore) {
-    this.scmPathInfoStore = scmPathInfoStore;
-    this.serviceFactory = serviceFactory;
+  public FileEnricher(FileLockIndex index, Provider<FileLockRequestContext> requestContext, FileLockMapper mapper, RepositoryManager repositoryManager, RepositoryConfigStore configStore, FileLockMetrics metrics) {
+    this.index = index;
+    this.requestContext = requestContext;
     this.mapper = mapper;
     this.repositoryManager = repositoryManager;
     this.configStore = configStore;
+    this.metrics = metrics;
   }
 
   @Override
   public void enrich(HalEnricherContext context, HalAppender appender) {
+    metrics.record(FileLockMetrics.FILE_ENRICHER, () -> appendLinks(context, appender));
+  }
+
+  private void appendLinks(HalEnricherContext context, HalAppender appender) {
     Repository repository = repositoryManager.get(context.oneRequireByType(NamespaceAndName.class));
     FileObject fileObject = context.oneRequireByType(FileObject.class);
 
-    if (shouldAppendLinks(repository)) {
-      try (RepositoryService service = serviceFactory.create(repository)) {
-        if (service.isSupported(Command.FILE_LOCK)) {
-          Optional<FileLock> fileLockStatus = service.getLockCommand().status(fileObject.getPath());
-          RestApiLinks restApiLinks = createRestApiLinks();
+    if (shouldAppendLinks(repository, fileObject)) {
+      Optional<RepositoryLocks> locks = index.get(repository);
+      if (locks.isPresent()) {
+        String lockPath = fileObject.isDirectory() ? RepositoryLocks.directoryLockPath(fileObject.getPath()) : fileObject.getPath();
+        Optional<FileLock> fileLock = locks.get().getCovering(lockPath);
+        FileLockMappingContext mappingContext = requestContext.get().getMappingContext(repository);
 
-          if (fileLockStatus.isPresent()) {
-            appendFileLock(appender, repository, fileObject, fileLockStatus.get(), restApiLinks);
-          } else {
-            appendLockLink(appender, repository, fileObject, restApiLinks);
-          }
+        if (fileLock.isPresent()) {
+          appendFileLock(appender, lockPath, fileLock.get(), mappingContext);
+        } else {
+          // the browsed revision, so that the download matches the listed file
+          String revision = context.oneByType(BrowserResult.class).map(BrowserResult::getRevision).orElse(null);
+          appendLockLink(appender, lockPath, revision, mappingContext);
+        }
+        if (fileObject.isDirectory()) {
+          appendLockedFiles(appender, locks.get().countBelow(lockPath));
         }
       }
     }
   }
 
-  private boolean shouldAppendLinks(Repository repository) {
-    return RepositoryPermissions.push(repository).isPermitted()
-      && configStore.getConfig(repository).isEnabled();
+  private boolean shouldAppendLinks(Repository repository, FileObject fileObject) {
+    if (!RepositoryPermissions.push(repository).isPermitted()) {
+      return false;
+    }
+    RepositoryConfig config = configStore.getConfig(repository);
+    // checking the patterns is cheaper than looking up the locks
+    return config.isEnabled()
+      && !Strings.isNullOrEmpty(fileObject.getPath())
+      && config.isLockable(fileObject.getPath(), fileObject.isDirectory());
   }
 
-  private void appendLockLink(HalAppender appender, Repository repository, FileObject fileObject, RestApiLinks restApiLinks) {
-    appender.appendLink("lock", restApiLinks.fileLock().lockFile(repository.getNamespace(), repository.getName(), fileObject.getPath()).asString());
+  private void appendLockLink(HalAppender appender, String lockPath, String revision, FileLockMappingContext mappingContext) {
+    appender.appendLink("lock", mappingContext.getLinks().lockFile(lockPath));
+    if (!RepositoryLocks.isDirectoryLockPath(lockPath)) {
+      appender.appendLink("lockAndDownload", mappingContext.getLinks().lockAndDownload(lockPath, revision));
+    }
   }
 
-  private void appendFileLock(HalAppender appender, Repository repository, FileObject fileObject, FileLock fileLockStatus, RestApiLinks restApiLinks) {
-    appender.appendLink("unlock", restApiLinks.fileLock().unlockFile(repository.getNamespace(), repository.getName(), fileObject.getPath()).asString());
-    appender.appendEmbedded("fileLock", mapper.map(repository, fileLockStatus));
+  private void appendLockedFiles(HalAppender appender, int count) {
+    if (count > 0) {
+      appender.appendEmbedded("lockedFiles", new FileLockCountDto(count));
+    }
   }
 
-  private RestApiLinks createRestApiLinks() {
-    return new RestApiLinks(scmPathInfoStore.get().get().getApiRestUri());
+  // unlocking a file must not silently release the lock of a directory above it
+  private void appendFileLock(HalAppender appender, String lockPath, FileLock fileLockStatus, FileLockMappingContext mappingContext) {
+    String relation = fileLockStatus.getPath().equals(lockPath) ? "unlock" : "unlockDirectory";
+    appender.appendLink(relation, mappingContext.getLinks().lockFile(fileLockStatus.getPath()));
+    appender.appendEmbedded("fileLock", mapper.map(fileLockStatus, mappingContext));
   }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.user.DisplayUser;
+import sonia.scm.user.UserDisplayManager;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Pushes lock changes of a repository to all clients which have subscribed to the
+ * server-sent events of that repository. Subscribers are dropped as soon as their sink is
+ * closed or a send fails; the periodic keep-alive finds them in repositories without changes
+ * and keeps proxies from closing idle streams.
+ */
+@Singleton
+public class FileLockBroadcaster {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileLockBroadcaster.class);
+
+  static final String LOCKED = "locked";
+  static final String UNLOCKED = "unlocked";
+  static final String KEEP_ALIVE = "keep-alive";
+
+  private final UserDisplayManager userDisplayManager;
+  private final ConcurrentMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+  @Inject
+  public FileLockBroadcaster(UserDisplayManager userDisplayManager) {
+    this.userDisplayManager = userDisplayManager;
+  }
+
+  public void subscribe(String repositoryId, String principal, Sse sse, SseEventSink sink) {
+    subscribers.compute(repositoryId, (id, repositorySubscribers) -> {
+      Set<Subscriber> current = repositorySubscribers == null ? ConcurrentHashMap.newKeySet() : repositorySubscribers;
+      current.removeIf(subscriber -> subscriber.sink.isClosed());
+      current.add(new Subscriber(principal, sse, sink));
+      return current;
+    });
+  }
+
+  public void locked(String repositoryId, FileLock fileLock) {
+    Set<Subscriber> repositorySubscribers = subscribers.get(repositoryId);
+    if (repositorySubscribers != null) {
+      String username = userDisplayManager.get(fileLock.getUserId()).map(DisplayUser::getDisplayName).orElse(fileLock.getUserId());
+      broadcast(repositorySubscribers, LOCKED, subscriber -> new FileLockChangeDto(
+        fileLock.getPath(),
+        username,
+        fileLock.getTimestamp(),
+        subscriber.principal.equals(fileLock.getUserId())
+      ));
+      removeIfEmpty(repositoryId);
+    }
+  }
+
+  public void unlocked(String repositoryId, String path) {
+    Set<Subscriber> repositorySubscribers = subscribers.get(repositoryId);
+    if (repositorySubscribers != null) {
+      FileLockChangeDto change = new FileLockChangeDto(path, null, null, false);
+      broadcast(repositorySubscribers, UNLOCKED, subscriber -> change);
+      removeIfEmpty(repositoryId);
+    }
+  }
+
+  /**
+   * Sends a comment to every subscriber, so that closed connections are detected and idle
+   * connections are kept open.
+   */
+  public void keepAlive() {
+    subscribers.forEach((repositoryId, repositorySubscribers) -> {
+      for (Subscriber subscriber : repositorySubscribers) {
+        send(repositorySubscribers, subscriber, s -> s.sse.newEventBuilder().comment(KEEP_ALIVE).build());
+      }
+      removeIfEmpty(repositoryId);
+    });
+  }
+
+  int getSubscriberCount(String repositoryId) {
+    Set<Subscriber> repositorySubscribers = subscribers.get(repositoryId);
+    return repositorySubscribers == null ? 0 : repositorySubscribers.size();
+  }
+
+  public void close(String repositoryId) {
+    Set<Subscriber> repositorySubscribers = subscribers.remove(repositoryId);
+    if (repositorySubscribers != null) {
+      repositorySubscribers.forEach(subscriber -> subscriber.sink.close());
+    }
+  }
+
+  private void broadcast(Set<Subscriber> repositorySubscribers, String name, Function<Subscriber, FileLockChangeDto> change) {
+    for (Subscriber subscriber : repositorySubscribers) {
+      send(repositorySubscribers, subscriber, s -> s.sse.newEventBuilder()
+        .name(name)
+        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+        .data(FileLockChangeDto.class, change.apply(s))
+        .build());
+    }
+  }
+
+  private void send(Set<Subscriber> repositorySubscribers, Subscriber subscriber, Function<Subscriber, OutboundSseEvent> event) {
+    if (subscriber.sink.isClosed()) {
+      repositorySubscribers.remove(subscriber);
+      return;
+    }
+    try {
+      subscriber.sink.send(event.apply(subscriber)).whenComplete((result, exception) -> {
+        if (exception != null) {
+          LOG.debug("failed to send file lock event, removing subscriber", exception);
+          drop(repositorySubscribers, subscriber);
+        }
+      });
+    } catch (IllegalStateException e) {
+      // the sink has been closed concurrently
+      drop(repositorySubscribers, subscriber);
+    }
+  }
+
+  private void removeIfEmpty(String repositoryId) {
+    subscribers.computeIfPresent(repositoryId, (id, current) -> current.isEmpty() ? null : current);
+  }
+
+  private void drop(Set<Subscriber> repositorySubscribers, Subscriber subscriber) {
+    repositorySubscribers.remove(subscriber);
+    subscriber.sink.close();
+  }
+
+  private static class Subscriber {
+    private final String principal;
+    private final Sse sse;
+    private final SseEventSink sink;
+
+    private Subscriber(String principal, Sse sse, SseEventSink sink) {
+      this.principal = principal;
+      this.sse = sse;
+      this.sink = sink;
+    }
+  }
+}
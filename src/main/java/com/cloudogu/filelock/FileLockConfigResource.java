@@ -49,11 +49,13 @@ public class FileLockConfigResource {
 
   private final RepositoryConfigStore configStore;
   private final RepositoryManager repositoryManager;
+  private final LockExpirySweeper sweeper;
 
   @Inject
-  public FileLockConfigResource(RepositoryConfigStore configStore, RepositoryManager repositoryManager) {
+  public FileLockConfigResource(RepositoryConfigStore configStore, RepositoryManager repositoryManager, LockExpirySweeper sweeper) {
     this.configStore = configStore;
     this.repositoryManager = repositoryManager;
+    this.sweeper = sweeper;
   }
 
   @GET
@@ -129,5 +131,6 @@ public class FileLockConfigResource {
       throw notFound(entity(new NamespaceAndName(namespace, name)));
     }
     configStore.updateConfig(repository, configDto.toEntity());
+    sweeper.reschedule(repository);
   }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import com.github.legman.Subscribe;
+import sonia.scm.EagerSingleton;
+import sonia.scm.HandlerEventType;
+import sonia.scm.plugin.Extension;
+import sonia.scm.repository.RepositoryEvent;
+import sonia.scm.repository.api.FileLockedEvent;
+import sonia.scm.repository.api.FileUnlockedEvent;
+
+import jakarta.inject.Inject;
+
+@Extension
+@EagerSingleton
+public class FileLockEventListener {
+
+  private final FileLockIndex index;
+  private final FileLockBroadcaster broadcaster;
+  private final LockExpirySweeper sweeper;
+  private final RepositoryConfigStore configStore;
+
+  @Inject
+  public FileLockEventListener(FileLockIndex index, FileLockBroadcaster broadcaster, LockExpirySweeper sweeper, RepositoryConfigStore configStore) {
+    this.index = index;
+    this.broadcaster = broadcaster;
+    this.sweeper = sweeper;
+    this.configStore = configStore;
+  }
+
+  @Subscribe(async = false)
+  public void handle(FileLockedEvent event) {
+    index.locked(event.getRepositoryId(), event.getFileLock());
+    broadcaster.locked(event.getRepositoryId(), event.getFileLock());
+    sweeper.locked(event.getRepositoryId(), event.getFileLock());
+  }
+
+  @Subscribe(async = false)
+  public void handle(FileUnlockedEvent event) {
+    index.unlocked(event.getRepositoryId(), event.getFileLock().getPath());
+    broadcaster.unlocked(event.getRepositoryId(), event.getFileLock().getPath());
+  }
+
+  @Subscribe(async = false)
+  public void handle(RepositoryEvent event) {
+    if (event.getEventType() == HandlerEventType.CREATE) {
+      // keeps the locks of users complete for new repositories
+      index.get(event.getItem());
+    } else if (event.getEventType() == HandlerEventType.DELETE) {
+      index.invalidate(event.getItem().getId());
+      broadcaster.close(event.getItem().getId());
+      configStore.invalidate(event.getItem().getId());
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import sonia.scm.plugin.Extension;
+import sonia.scm.schedule.Scheduler;
+
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+
+@Extension
+public class FileLockEventsKeepAlive implements ServletContextListener {
+
+  // proxies commonly close streams after sixty seconds without data
+  private static final String EXPRESSION = "0/30 * * * * ?";
+
+  private final Scheduler scheduler;
+  private final FileLockBroadcaster broadcaster;
+
+  @Inject
+  public FileLockEventsKeepAlive(Scheduler scheduler, FileLockBroadcaster broadcaster) {
+    this.scheduler = scheduler;
+    this.broadcaster = broadcaster;
+  }
+
+  @Override
+  public void contextInitialized(ServletContextEvent sce) {
+    scheduler.schedule(EXPRESSION, broadcaster::keepAlive);
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent sce) {
+    // the scheduler stops all jobs on shutdown
+  }
+}
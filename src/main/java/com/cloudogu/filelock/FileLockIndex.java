@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.Command;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the file locks of each repository in memory, so that reading lock states does not
+ * hit the lock store. The locks of a repository are loaded on first access, without holding
+ * a lock of the map, and are updated afterwards by the lock resource and by
+ * {@link FileLockEventListener}. Every change is
+ * passed on to the {@link UserFileLocks} and the {@link LockStatistics}, which are complete
+ * once all repositories have been loaded by the {@link FileLockIndexInitializer}.
+ */
+@Singleton
+public class FileLockIndex {
+
+  private final RepositoryServiceFactory serviceFactory;
+  private final FileLockMetrics metrics;
+  private final UserFileLocks userFileLocks;
+  private final LockStatistics statistics;
+  private final ConcurrentMap<String, Optional<RepositoryLocks>> repositories = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+  private final long initialVersion = System.currentTimeMillis();
+
+  @Inject
+  public FileLockIndex(RepositoryServiceFactory serviceFactory, FileLockMetrics metrics, UserFileLocks userFileLocks, LockStatistics statistics) {
+    this.serviceFactory = serviceFactory;
+    this.metrics = metrics;
+    this.userFileLocks = userFileLocks;
+    this.statistics = statistics;
+    metrics.lockCount(statistics, LockStatistics::getTotal);
+  }
+
+  /**
+   * Returns the locks of the given repository or an empty optional, if the repository does
+   * not support file locks.
+   */
+  public Optional<RepositoryLocks> get(Repository repository) {
+    String repositoryId = repository.getId();
+    Optional<RepositoryLocks> locks = repositories.get(repositoryId);
+    if (locks != null) {
+      return locks;
+    }
+    // the store is read outside of the map, changes during the load are detected by the version
+    long version = getVersion(repositoryId);
+    Optional<RepositoryLocks> loaded = metrics.record(FileLockMetrics.LOAD, () -> loadFromStore(repository));
+    Optional<RepositoryLocks> cached = repositories.compute(repositoryId, (id, existing) -> {
+      if (existing != null || getVersion(id) != version) {
+        return existing;
+      }
+      loaded(id, loaded);
+      return loaded;
+    });
+    // if the locks changed while loading, they are loaded again on the next access
+    return cached == null ? loaded : cached;
+  }
+
+  /**
+   * Returns a version of the locks of the given repository, which changes with every
+   * modification. The version does not require the locks to be loaded.
+   */
+  public long getVersion(String repositoryId) {
+    return version(repositoryId).get();
+  }
+
+  public void locked(String repositoryId, FileLock fileLock) {
+    version(repositoryId).incrementAndGet();
+    repositories.computeIfPresent(repositoryId, (id, locks) -> {
+      locks.ifPresent(l -> {
+        l.put(fileLock).ifPresent(previous -> removed(id, previous));
+        added(id, fileLock);
+      });
+      return locks;
+    });
+  }
+
+  public void unlocked(String repositoryId, String path) {
+    version(repositoryId).incrementAndGet();
+    repositories.computeIfPresent(repositoryId, (id, locks) -> {
+      locks.ifPresent(l -> l.remove(path).ifPresent(removed -> removed(id, removed)));
+      return locks;
+    });
+  }
+
+  public void invalidate(String repositoryId) {
+    version(repositoryId).incrementAndGet();
+    Optional<RepositoryLocks> removed = repositories.remove(repositoryId);
+    if (removed != null) {
+      removed.ifPresent(locks -> locks.stream().forEach(fileLock -> removed(repositoryId, fileLock)));
+    }
+  }
+
+  private void added(String repositoryId, FileLock fileLock) {
+    userFileLocks.added(repositoryId, fileLock);
+    statistics.added(repositoryId, fileLock);
+  }
+
+  private void removed(String repositoryId, FileLock fileLock) {
+    userFileLocks.removed(repositoryId, fileLock);
+    statistics.removed(repositoryId, fileLock);
+  }
+
+  private AtomicLong version(String repositoryId) {
+    return versions.computeIfAbsent(repositoryId, id -> new AtomicLong(initialVersion));
+  }
+
+  private void loaded(String repositoryId, Optional<RepositoryLocks> locks) {
+    locks.ifPresent(l -> l.stream().forEach(fileLock -> added(repositoryId, fileLock)));
+  }
+
+  private Optional<RepositoryLocks> loadFromStore(Repository repository) {
+    try (RepositoryService service = serviceFactory.create(repository)) {
+      if (!service.isSupported(Command.FILE_LOCK)) {
+        return Optional.empty();
+      }
+      return Optional.of(new RepositoryLocks(service.getLockCommand().getAll()));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.plugin.Extension;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.web.security.AdministrationContext;
+
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the locks of all repositories in the background after startup, so that the views
+ * across all repositories become complete without blocking the startup. Repositories which
+ * are accessed earlier are loaded on demand; afterwards the index is maintained with every
+ * change. Repositories which fail to load are retried on their own.
+ */
+@Extension
+public class FileLockIndexInitializer implements ServletContextListener {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileLockIndexInitializer.class);
+
+  private static final long RETRY_DELAY_MINUTES = 5;
+
+  private final AdministrationContext administrationContext;
+  private final RepositoryManager repositoryManager;
+  private final FileLockIndex index;
+  private final UserFileLocks userFileLocks;
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("FileLockIndexInitializer").setDaemon(true).build()
+  );
+  private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+  @Inject
+  public FileLockIndexInitializer(AdministrationContext administrationContext, RepositoryManager repositoryManager, FileLockIndex index, UserFileLocks userFileLocks) {
+    this.administrationContext = administrationContext;
+    this.repositoryManager = repositoryManager;
+    this.index = index;
+    this.userFileLocks = userFileLocks;
+  }
+
+  @Override
+  public void contextInitialized(ServletContextEvent sce) {
+    executor.execute(() -> administrationContext.runAsAdmin(this::loadAll));
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent sce) {
+    executor.shutdownNow();
+  }
+
+  void loadAll() {
+    for (Repository repository : repositoryManager.getAll()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      if (!load(repository)) {
+        failed.add(repository.getId());
+      }
+    }
+    userFileLocks.initialized(failed);
+    scheduleRetry();
+  }
+
+  void retryFailed() {
+    for (String repositoryId : new ArrayList<>(failed)) {
+      Repository repository = repositoryManager.get(repositoryId);
+      // deleted repositories have no locks left
+      if (repository == null || load(repository)) {
+        failed.remove(repositoryId);
+        userFileLocks.loaded(repositoryId);
+      }
+    }
+    scheduleRetry();
+  }
+
+  private void scheduleRetry() {
+    if (!failed.isEmpty() && !executor.isShutdown()) {
+      executor.schedule(() -> administrationContext.runAsAdmin(this::retryFailed), RETRY_DELAY_MINUTES, TimeUnit.MINUTES);
+    }
+  }
+
+  private boolean load(Repository repository) {
+    try {
+      index.get(repository);
+      return true;
+    } catch (RuntimeException e) {
+      LOG.warn("failed to load file locks of repository {}, retrying in {} minutes", repository, RETRY_DELAY_MINUTES, e);
+      return false;
+    }
+  }
+}
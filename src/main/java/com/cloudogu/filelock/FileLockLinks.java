@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import com.google.common.base.Strings;
+import com.google.common.escape.Escaper;
+import com.google.common.net.PercentEscaper;
+import com.google.common.net.UrlEscapers;
+import sonia.scm.repository.Repository;
+
+/**
+ * Creates the lock, unlock and download links of a single repository by appending the escaped
+ * path to a prefix, which is built only once.
+ */
+class FileLockLinks {
+
+  // like UrlEscapers.urlPathSegmentEscaper(), but ';' would start matrix parameters and '+' is ambiguous
+  private static final Escaper PATH_SEGMENT_ESCAPER = new PercentEscaper("-._~!$'()*,&=@:", false);
+
+  private final String lockPrefix;
+  private final String downloadPrefix;
+
+  private FileLockLinks(String base) {
+    this.lockPrefix = base + "/lock/";
+    this.downloadPrefix = base + "/lock-and-download/";
+  }
+
+  static FileLockLinks of(RestApiLinks restApiLinks, Repository repository) {
+    return new FileLockLinks(restApiLinks.fileLock().getAll(repository.getNamespace(), repository.getName()).asString());
+  }
+
+  /**
+   * Returns the link to lock or unlock the given path. Both share the same url.
+   */
+  String lockFile(String path) {
+    return lockPrefix + encodePathSegment(path);
+  }
+
+  /**
+   * Returns the link to lock and download the given path in the given revision. Without a
+   * revision the file is read from the default branch.
+   */
+  String lockAndDownload(String path, String revision) {
+    String link = downloadPrefix + encodePathSegment(path);
+    if (Strings.isNullOrEmpty(revision)) {
+      return link;
+    }
+    return link + "?revision=" + UrlEscapers.urlFormParameterEscaper().escape(revision);
+  }
+
+  private static String encodePathSegment(String value) {
+    return PATH_SEGMENT_ESCAPER.escape(value);
+  }
+}
@@ -18,7 +18,6 @@ package com.cloudogu.filelock;
 
 import com.google.common.annotations.VisibleForTesting;
 import de.otto.edison.hal.Links;
-import org.apache.shiro.SecurityUtils;
 import org.mapstruct.AfterMapping;
 import org.mapstruct.Context;
 import org.mapstruct.Mapper;
@@ -29,12 +28,16 @@ import sonia.scm.api.v2.resources.ScmPathInfoStore;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.api.FileLock;
 import sonia.scm.user.DisplayUser;
-import sonia.scm.user.User;
 import sonia.scm.user.UserDisplayManager;
 
 import jakarta.inject.Inject;
 import org.mapstruct.Named;
 import jakarta.inject.Provider;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static de.otto.edison.hal.Link.link;
 import static de.otto.edison.hal.Links.linkingTo;
@@ -57,32 +60,51 @@ public abstract class FileLockMapper {
     this.userDisplayManager = userDisplayManager;
   }
 
+  public FileLockDto map(Repository repository, FileLock fileLock) {
+    return map(fileLock, createContext(repository));
+  }
+
+  public List<FileLockDto> mapAll(Repository repository, Collection<FileLock> fileLocks) {
+    FileLockMappingContext context = createContext(repository);
+    return fileLocks.stream()
+      .map(fileLock -> map(fileLock, context))
+      .collect(Collectors.toList());
+  }
+
+  public Map<String, FileLockDto> mapAll(Repository repository, Map<String, FileLock> fileLocks) {
+    FileLockMappingContext context = createContext(repository);
+    Map<String, FileLockDto> dtos = new LinkedHashMap<>();
+    fileLocks.forEach((key, fileLock) -> dtos.put(key, map(fileLock, context)));
+    return dtos;
+  }
+
   @Mapping(target = "attributes", ignore = true) // We do not map HAL attributes
   @Mapping(target = "username", source = "userId", qualifiedByName = "mapUser")
-  public abstract FileLockDto map(@Context Repository repository, FileLock fileLock);
+  abstract FileLockDto map(FileLock fileLock, @Context FileLockMappingContext context);
 
   @Named("mapUser")
-  String mapUser(String userId) {
-    return userDisplayManager.get(userId).orElseGet(() -> DisplayUser.from(new User(userId, userId, null))).getDisplayName();
+  String mapUser(String userId, @Context FileLockMappingContext context) {
+    return context.getDisplayName(userId, this::resolveDisplayName);
+  }
+
+  private String resolveDisplayName(String userId) {
+    return userDisplayManager.get(userId).map(DisplayUser::getDisplayName).orElse(userId);
   }
 
   @AfterMapping
-  void mapWriteAccess(@MappingTarget FileLockDto dto, FileLock fileLock) {
-    String username = SecurityUtils.getSubject().getPrincipal().toString();
-    dto.setOwned(fileLock.getUserId().equals(username));
+  void mapWriteAccess(@MappingTarget FileLockDto dto, FileLock fileLock, @Context FileLockMappingContext context) {
+    dto.setOwned(context.isOwnedByCurrentUser(fileLock.getUserId()));
   }
 
   @ObjectFactory
-  FileLockDto createDto(@Context Repository repository, FileLock fileLock) {
+  FileLockDto createDto(FileLock fileLock, @Context FileLockMappingContext context) {
     Links.Builder linksBuilder = linkingTo();
+    linksBuilder.single(link("unlock", context.getLinks().lockFile(fileLock.getPath())));
+    return new FileLockDto(linksBuilder.build());
+  }
 
+  private FileLockMappingContext createContext(Repository repository) {
     RestApiLinks restApiLinks = new RestApiLinks(scmPathInfoStoreProvider.get().get().getApiRestUri());
-    linksBuilder.single(
-      link(
-        "unlock",
-        restApiLinks.fileLock().unlockFile(repository.getNamespace(), repository.getName(), fileLock.getPath()).asString()
-      )
-    );
-    return new FileLockDto(linksBuilder.build());
+    return FileLockMappingContext.create(restApiLinks, repository);
   }
 }
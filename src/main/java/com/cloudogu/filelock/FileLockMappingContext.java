@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.apache.shiro.SecurityUtils;
+import sonia.scm.repository.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * State shared by all mappings for a repository within a single request, e.g. while mapping a
+ * list of locks or enriching the files of a directory.
+ */
+class FileLockMappingContext {
+
+  private final FileLockLinks links;
+  private final String principal;
+  private final Map<String, String> displayNames = new HashMap<>();
+
+  FileLockMappingContext(FileLockLinks links, String principal) {
+    this.links = links;
+    this.principal = principal;
+  }
+
+  static FileLockMappingContext create(RestApiLinks restApiLinks, Repository repository) {
+    return new FileLockMappingContext(
+      FileLockLinks.of(restApiLinks, repository),
+      SecurityUtils.getSubject().getPrincipal().toString()
+    );
+  }
+
+  FileLockLinks getLinks() {
+    return links;
+  }
+
+  boolean isOwnedByCurrentUser(String userId) {
+    return principal.equals(userId);
+  }
+
+  String getDisplayName(String userId, Function<String, String> resolver) {
+    return displayNames.computeIfAbsent(userId, resolver);
+  }
+}
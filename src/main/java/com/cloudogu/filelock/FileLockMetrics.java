@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Meters of the file lock plugin, registered at the meter registry of SCM-Manager.
+ */
+@Singleton
+public class FileLockMetrics {
+
+  static final String OPERATIONS = "scm.filelock.operations";
+  static final String CONFLICTS = "scm.filelock.conflicts";
+  static final String LOCKS = "scm.filelock.locks";
+
+  static final String LOCK = "lock";
+  static final String UNLOCK = "unlock";
+  static final String GET_ALL = "getAll";
+  static final String LOAD = "load";
+  static final String FILE_ENRICHER = "fileEnricher";
+  static final String REPOSITORY_ENRICHER = "repositoryEnricher";
+
+  private final MeterRegistry registry;
+  private final Counter conflicts;
+  // the enrichers are called for every file and repository, so we avoid the lookup in the registry
+  private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+  @Inject
+  public FileLockMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    this.conflicts = Counter.builder(CONFLICTS)
+      .description("Lock requests rejected, because the file was locked by another user")
+      .register(registry);
+  }
+
+  public <T> T record(String operation, Supplier<T> supplier) {
+    return timer(operation).record(supplier);
+  }
+
+  public void record(String operation, Runnable runnable) {
+    timer(operation).record(runnable);
+  }
+
+  public void conflicts(int count) {
+    if (count > 0) {
+      conflicts.increment(count);
+    }
+  }
+
+  /**
+   * Registers a gauge for the number of locks of all loaded repositories. A gauge per
+   * repository would create too many meters on large instances.
+   */
+  public <T> void lockCount(T state, ToDoubleFunction<T> count) {
+    Gauge.builder(LOCKS, state, count)
+      .description("Number of file locks of all loaded repositories")
+      .register(registry);
+  }
+
+  private Timer timer(String operation) {
+    return timers.computeIfAbsent(operation, o -> Timer.builder(OPERATIONS)
+      .description("Time spent in file lock operations and enrichers")
+      .tag("operation", o)
+      .register(registry));
+  }
+}
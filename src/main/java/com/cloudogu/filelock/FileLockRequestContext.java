@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import com.google.inject.servlet.RequestScoped;
+import sonia.scm.api.v2.resources.ScmPathInfoStore;
+import sonia.scm.repository.Repository;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps link builders and mapping contexts for the duration of a request, so that enrichers
+ * create them only once and not for each enriched object.
+ */
+@RequestScoped
+public class FileLockRequestContext {
+
+  private final Provider<ScmPathInfoStore> scmPathInfoStore;
+  private final Map<String, FileLockMappingContext> mappingContexts = new HashMap<>();
+  private RestApiLinks restApiLinks;
+
+  @Inject
+  public FileLockRequestContext(Provider<ScmPathInfoStore> scmPathInfoStore) {
+    this.scmPathInfoStore = scmPathInfoStore;
+  }
+
+  RestApiLinks getRestApiLinks() {
+    if (restApiLinks == null) {
+      restApiLinks = new RestApiLinks(scmPathInfoStore.get().get().getApiRestUri());
+    }
+    return restApiLinks;
+  }
+
+  FileLockMappingContext getMappingContext(Repository repository) {
+    return mappingContexts.computeIfAbsent(
+      repository.getId(),
+      id -> FileLockMappingContext.create(getRestApiLinks(), repository)
+    );
+  }
+}
@@ -17,8 +17,12 @@
 package com.cloudogu.filelock;
 
 import com.cloudogu.jaxrstie.GenerateLinkBuilder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.base.Strings;
 import de.otto.edison.hal.Embedded;
 import de.otto.edison.hal.HalRepresentation;
+import de.otto.edison.hal.Link;
 import de.otto.edison.hal.Links;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
@@ -26,25 +30,60 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.apache.shiro.SecurityUtils;
 import sonia.scm.api.v2.resources.ErrorDto;
 import sonia.scm.repository.NamespaceAndName;
 import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
 import sonia.scm.repository.RepositoryPermissions;
+import sonia.scm.repository.api.CatCommandBuilder;
 import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.FileLockedException;
 import sonia.scm.repository.api.RepositoryService;
 import sonia.scm.repository.api.RepositoryServiceFactory;
 import sonia.scm.web.VndMediaType;
 
 import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.CacheControl;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static sonia.scm.ContextEntry.ContextBuilder.entity;
+import static sonia.scm.NotFoundException.notFound;
 
 @Path("v2/file-lock")
 @OpenAPIDefinition(tags = {
@@ -54,27 +93,193 @@ import java.util.stream.Collectors;
 public class FileLockResource {
 
   public static final String MEDIA_TYPE = VndMediaType.PREFIX + "file-lock" + VndMediaType.SUFFIX;
+  public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory()
+    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+    .setRootValueSeparator(null);
 
   private final RepositoryServiceFactory serviceFactory;
+  private final RepositoryManager repositoryManager;
+  private final FileLockIndex index;
   private final FileLockMapper mapper;
+  private final FileLockMetrics metrics;
+  private final FileLockBroadcaster broadcaster;
 
   @Inject
-  public FileLockResource(RepositoryServiceFactory serviceFactory, FileLockMapper mapper) {
+  public FileLockResource(RepositoryServiceFactory serviceFactory, RepositoryManager repositoryManager, FileLockIndex index, FileLockMapper mapper, FileLockMetrics metrics, FileLockBroadcaster broadcaster) {
     this.serviceFactory = serviceFactory;
+    this.repositoryManager = repositoryManager;
+    this.index = index;
     this.mapper = mapper;
+    this.metrics = metrics;
+    this.broadcaster = broadcaster;
   }
 
   @POST
   @Path("{namespace}/{name}/lock/{path}")
   @Operation(
     summary = "Add file lock",
-    description = "Locks a single file to prevent write access.",
+    description = "Locks a single file to prevent write access. A path ending with a slash locks the directory with all files below.",
     tags = "File Lock",
     operationId = "file_lock_lock"
   )
   @ApiResponse(responseCode = "204", description = "no content")
   @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
   @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
+  @ApiResponse(
+    responseCode = "409",
+    description = "conflict, the path or a directory above or, for a directory, a path below is locked by another user",
+    content = @Content(
+      mediaType = MEDIA_TYPE,
+      schema = @Schema(implementation = HalRepresentation.class)
+    )
+  )
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public Response lockFile(@PathParam("namespace") String namespace, @PathParam("name") String name, @PathParam("path") String lockPath) {
+    String path = RepositoryLocks.normalize(lockPath);
+    return metrics.record(FileLockMetrics.LOCK, () -> {
+      try (RepositoryService service = serviceFactory.create(new NamespaceAndName(namespace, name))) {
+        Repository repository = service.getRepository();
+        RepositoryPermissions.push(repository).check();
+        String username = SecurityUtils.getSubject().getPrincipal().toString();
+        Optional<RepositoryLocks> locks = index.get(repository);
+        List<FileLock> conflicts = findForeignLocks(locks, path, username);
+        if (!conflicts.isEmpty()) {
+          metrics.conflicts(1);
+          return conflict(repository, conflicts);
+        }
+        if (locks.flatMap(l -> l.getCovering(path)).isPresent()) {
+          // already locked by the current user, either the path itself or a directory above
+          return Response.noContent().build();
+        }
+        Optional<FileLock> conflict = tryLock(service, repository, path);
+        if (conflict.isPresent()) {
+          metrics.conflicts(1);
+          return conflict(repository, List.of(conflict.get()));
+        }
+        return Response.noContent().build();
+      }
+    });
+  }
+
+  @POST
+  @Path("{namespace}/{name}/lock-and-download/{path}")
+  @Produces({MediaType.APPLICATION_OCTET_STREAM, MEDIA_TYPE})
+  @Operation(
+    summary = "Lock and download file",
+    description = "Locks a single file and streams its content in the same request. If the file is locked by another user, the request fails before any content is sent.",
+    tags = "File Lock",
+    operationId = "file_lock_lock_and_download"
+  )
+  @ApiResponse(responseCode = "200", description = "success, the file is locked and its content follows")
+  @ApiResponse(responseCode = "400", description = "the path is a directory")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
+  @ApiResponse(responseCode = "404", description = "not found, the file does not exist in the given revision")
+  @ApiResponse(
+    responseCode = "409",
+    description = "conflict, the file or a directory above is locked by another user",
+    content = @Content(
+      mediaType = MEDIA_TYPE,
+      schema = @Schema(implementation = HalRepresentation.class)
+    )
+  )
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public Response lockAndDownload(@PathParam("namespace") String namespace,
+                                  @PathParam("name") String name,
+                                  @PathParam("path") String lockPath,
+                                  @QueryParam("revision") String revision) throws IOException {
+    String path = RepositoryLocks.normalize(lockPath);
+    if (RepositoryLocks.isDirectoryLockPath(path)) {
+      return Response.status(Response.Status.BAD_REQUEST).build();
+    }
+    // the service is closed after the content has been streamed
+    RepositoryService service = serviceFactory.create(new NamespaceAndName(namespace, name));
+    try {
+      Repository repository = service.getRepository();
+      RepositoryPermissions.push(repository).check();
+      String username = SecurityUtils.getSubject().getPrincipal().toString();
+      List<FileLock> conflicts = findForeignLocks(index.get(repository), path, username);
+      if (!conflicts.isEmpty()) {
+        metrics.conflicts(1);
+        service.close();
+        return conflict(repository, conflicts);
+      }
+
+      CatCommandBuilder catCommand = service.getCatCommand();
+      if (!Strings.isNullOrEmpty(revision)) {
+        catCommand.setRevision(revision);
+      }
+      InputStream content = catCommand.getStream(path);
+      Optional<FileLock> conflict;
+      try {
+        conflict = metrics.record(FileLockMetrics.LOCK, () -> tryLock(service, repository, path));
+      } catch (RuntimeException e) {
+        content.close();
+        throw e;
+      }
+      if (conflict.isPresent()) {
+        metrics.conflicts(1);
+        content.close();
+        service.close();
+        return conflict(repository, List.of(conflict.get()));
+      }
+
+      StreamingOutput output = out -> {
+        try (service; content) {
+          content.transferTo(out);
+        }
+      };
+      return Response.ok(output, MediaType.APPLICATION_OCTET_STREAM)
+        .header("Content-Disposition", contentDisposition(path))
+        .build();
+    } catch (IOException | RuntimeException e) {
+      service.close();
+      throw e;
+    }
+  }
+
+  private static String contentDisposition(String path) {
+    String filename = path.substring(path.lastIndexOf('/') + 1);
+    return "attachment; filename*=UTF-8''" + URLEncoder.encode(filename, StandardCharsets.UTF_8).replace("+", "%20");
+  }
+
+  @POST
+  @Path("{namespace}/{name}/locks")
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  @Operation(
+    summary = "Add multiple file locks",
+    description = "Locks multiple files at once. Files locked by other users are returned as conflicts.",
+    tags = "File Lock",
+    operationId = "file_lock_lock_multiple"
+  )
+  @ApiResponse(
+    responseCode = "200",
+    description = "success",
+    content = @Content(
+      mediaType = MediaType.APPLICATION_JSON,
+      schema = @Schema(implementation = FileLockBatchResultDto.class)
+    )
+  )
+  @ApiResponse(responseCode = "400", description = "invalid body, no paths given")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
   @ApiResponse(
     responseCode = "500",
     description = "internal server error",
@@ -83,10 +288,33 @@ public class FileLockResource {
       schema = @Schema(implementation = ErrorDto.class)
     )
   )
-  public void lockFile(@PathParam("namespace") String namespace, @PathParam("name") String name, @PathParam("path") String path) {
+  public FileLockBatchResultDto lockFiles(@PathParam("namespace") String namespace, @PathParam("name") String name, @Valid FilePathsDto pathsDto) {
     try (RepositoryService service = serviceFactory.create(new NamespaceAndName(namespace, name))) {
-      RepositoryPermissions.push(service.getRepository()).check();
-      service.getLockCommand().lock(path).execute();
+      Repository repository = service.getRepository();
+      RepositoryPermissions.push(repository).check();
+      String username = SecurityUtils.getSubject().getPrincipal().toString();
+      Optional<RepositoryLocks> locks = index.get(repository);
+
+      List<String> locked = new ArrayList<>();
+      Map<String, FileLock> conflicts = new LinkedHashMap<>();
+      for (String path : normalize(pathsDto.getPaths())) {
+        List<FileLock> foreignLocks = findForeignLocks(locks, path, username);
+        if (!foreignLocks.isEmpty()) {
+          foreignLocks.forEach(fileLock -> conflicts.putIfAbsent(fileLock.getPath(), fileLock));
+        } else if (locks.flatMap(l -> l.getCovering(path)).isPresent()) {
+          // already locked by the current user, either the path itself or a directory above
+          locked.add(path);
+        } else {
+          Optional<FileLock> conflict = tryLock(service, repository, path);
+          if (conflict.isPresent()) {
+            conflicts.putIfAbsent(conflict.get().getPath(), conflict.get());
+          } else {
+            locked.add(path);
+          }
+        }
+      }
+      metrics.conflicts(conflicts.size());
+      return new FileLockBatchResultDto(locked, mapper.mapAll(repository, new ArrayList<>(conflicts.values())));
     }
   }
 
@@ -109,10 +337,47 @@ public class FileLockResource {
       schema = @Schema(implementation = ErrorDto.class)
     )
   )
-  public void unlockFile(@PathParam("namespace") String namespace, @PathParam("name") String name, @PathParam("path") String path) {
+  public void unlockFile(@PathParam("namespace") String namespace, @PathParam("name") String name, @PathParam("path") String lockPath) {
+    String path = RepositoryLocks.normalize(lockPath);
+    metrics.record(FileLockMetrics.UNLOCK, () -> {
+      try (RepositoryService service = serviceFactory.create(new NamespaceAndName(namespace, name))) {
+        Repository repository = service.getRepository();
+        RepositoryPermissions.push(repository).check();
+        service.getLockCommand().unlock(path).force(true).execute();
+        index.unlocked(repository.getId(), path);
+      }
+    });
+  }
+
+  @POST
+  @Path("{namespace}/{name}/unlocks")
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Operation(
+    summary = "Removes multiple file locks",
+    description = "Removes the locks from multiple files at once.",
+    tags = "File Lock",
+    operationId = "file_lock_unlock_multiple"
+  )
+  @ApiResponse(responseCode = "204", description = "delete successful or nothing to do")
+  @ApiResponse(responseCode = "400", description = "invalid body, no paths given")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public void unlockFiles(@PathParam("namespace") String namespace, @PathParam("name") String name, @Valid FilePathsDto pathsDto) {
     try (RepositoryService service = serviceFactory.create(new NamespaceAndName(namespace, name))) {
-      RepositoryPermissions.push(service.getRepository()).check();
-      service.getLockCommand().unlock(path).force(true).execute();
+      Repository repository = service.getRepository();
+      RepositoryPermissions.push(repository).check();
+      for (String path : normalize(pathsDto.getPaths())) {
+        service.getLockCommand().unlock(path).force(true).execute();
+        index.unlocked(repository.getId(), path);
+      }
     }
   }
 
@@ -121,11 +386,90 @@ public class FileLockResource {
   @Produces(MEDIA_TYPE)
   @Operation(
     summary = "Get all locked files",
-    description = "Get all locked files for repository.",
+    description = "Get all locked files for repository. The locks can be filtered, sorted and paged; without a page size all matching locks are returned.",
     tags = "File Lock",
     operationId = "file_lock_get_all"
   )
+  @ApiResponse(
+    responseCode = "200",
+    description = "success",
+    content = @Content(
+      mediaType = MEDIA_TYPE,
+      schema = @Schema(implementation = FileLockCollectionDto.class)
+    )
+  )
+  @ApiResponse(responseCode = "304", description = "not modified, the locks match the given entity tag")
+  @ApiResponse(responseCode = "400", description = "invalid paging parameters")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public Response getAll(@Context UriInfo uriInfo,
+                         @Context Request request,
+                         @PathParam("namespace") String namespace,
+                         @PathParam("name") String name,
+                         @QueryParam("page") @DefaultValue("0") @Min(0) int page,
+                         @QueryParam("pageSize") @Min(1) Integer pageSize,
+                         @QueryParam("pathPrefix") String pathPrefix,
+                         @QueryParam("owner") String owner,
+                         @QueryParam("sortBy") @DefaultValue("path") FileLockSort sortBy,
+                         @QueryParam("desc") boolean desc) {
+    return metrics.record(
+      FileLockMetrics.GET_ALL,
+      () -> createCollectionResponse(uriInfo, request, namespace, name, page, pageSize, pathPrefix, owner, sortBy, desc)
+    );
+  }
+
+  private Response createCollectionResponse(UriInfo uriInfo, Request request, String namespace, String name, int page, Integer pageSize, String pathPrefix, String owner, FileLockSort sortBy, boolean desc) {
+    Repository repository = getRepository(namespace, name);
+    RepositoryPermissions.push(repository).check();
+
+    EntityTag entityTag = createEntityTag(uriInfo, repository);
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+    if (notModified != null) {
+      return notModified.cacheControl(revalidate()).build();
+    }
+
+    List<FileLock> fileLocks = filter(repository, pathPrefix, owner)
+      .sorted(sortBy.comparator(desc))
+      .collect(Collectors.toList());
+
+    FileLockCollectionDto collection;
+    if (pageSize == null) {
+      collection = new FileLockCollectionDto(createLinks(uriInfo, repository), createEmbedded(repository, fileLocks), 0, 1);
+    } else {
+      // computed in long, because page and page size are only limited by int
+      int pageTotal = (int) Math.max(1, (fileLocks.size() + (long) pageSize - 1) / pageSize);
+      int from = (int) Math.min((long) page * pageSize, fileLocks.size());
+      int to = (int) Math.min((long) from + pageSize, fileLocks.size());
+      collection = new FileLockCollectionDto(
+        createPagedLinks(uriInfo, page, pageTotal),
+        createEmbedded(repository, fileLocks.subList(from, to)),
+        page,
+        pageTotal
+      );
+    }
+    return Response.ok(collection).tag(entityTag).cacheControl(revalidate()).build();
+  }
+
+  @POST
+  @Path("{namespace}/{name}/conflicts")
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MEDIA_TYPE)
+  @Operation(
+    summary = "Get locks of files",
+    description = "Returns the locks for the given paths, e.g. to check whether files can be uploaded.",
+    tags = "File Lock",
+    operationId = "file_lock_conflicts"
+  )
   @ApiResponse(responseCode = "200", description = "success")
+  @ApiResponse(responseCode = "400", description = "invalid body, no paths given")
   @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
   @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
   @ApiResponse(
@@ -136,29 +480,249 @@ public class FileLockResource {
       schema = @Schema(implementation = ErrorDto.class)
     )
   )
-  public HalRepresentation getAll(@Context UriInfo uriInfo, @PathParam("namespace") String namespace, @PathParam("name") String name) {
-    try (RepositoryService service = serviceFactory.create(new NamespaceAndName(namespace, name))) {
-      Repository repository = service.getRepository();
-      RepositoryPermissions.push(repository).check();
-      return new HalRepresentation(
-        createLinks(uriInfo, repository),
-        createEmbedded(service, repository));
+  public HalRepresentation getConflicts(@PathParam("namespace") String namespace, @PathParam("name") String name, @Valid FilePathsDto pathsDto) {
+    Repository repository = getRepository(namespace, name);
+    RepositoryPermissions.push(repository).check();
+    Map<String, FileLock> conflicts = new LinkedHashMap<>();
+    index.get(repository).ifPresent(locks -> new LinkedHashSet<>(pathsDto.getPaths()).stream()
+      .map(locks::getCovering)
+      .flatMap(Optional::stream)
+      .forEach(fileLock -> conflicts.putIfAbsent(fileLock.getPath(), fileLock)));
+    return new HalRepresentation(Links.emptyLinks(), createEmbedded(repository, new ArrayList<>(conflicts.values())));
+  }
+
+  @GET
+  @Path("{namespace}/{name}/export")
+  @Produces(NDJSON_MEDIA_TYPE)
+  @Operation(
+    summary = "Export all locked files",
+    description = "Streams all locked files of the repository as newline delimited json, one lock per line.",
+    tags = "File Lock",
+    operationId = "file_lock_export"
+  )
+  @ApiResponse(responseCode = "200", description = "success")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public StreamingOutput export(@PathParam("namespace") String namespace,
+                                @PathParam("name") String name,
+                                @QueryParam("pathPrefix") String pathPrefix,
+                                @QueryParam("owner") String owner) {
+    Repository repository = getRepository(namespace, name);
+    RepositoryPermissions.push(repository).check();
+    return output -> {
+      try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+        filter(repository, pathPrefix, owner).forEach(fileLock -> writeLine(generator, fileLock));
+      }
+    };
+  }
+
+  @GET
+  @Path("{namespace}/{name}/events")
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  @Operation(
+    summary = "Subscribe to lock changes",
+    description = "Streams server-sent events named 'locked' and 'unlocked' for every lock change in the repository.",
+    tags = "File Lock",
+    operationId = "file_lock_events"
+  )
+  @ApiResponse(responseCode = "200", description = "success")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public void events(@Context Sse sse,
+                     @Context SseEventSink sink,
+                     @PathParam("namespace") String namespace,
+                     @PathParam("name") String name) {
+    Repository repository = getRepository(namespace, name);
+    RepositoryPermissions.push(repository).check();
+    String principal = SecurityUtils.getSubject().getPrincipal().toString();
+    broadcaster.subscribe(repository.getId(), principal, sse, sink);
+  }
+
+  @GET
+  @Path("{namespace}/{name}/status")
+  @Produces(MEDIA_TYPE)
+  @Operation(
+    summary = "Get lock status of a directory",
+    description = "Returns the locks of the files and directories directly inside the given directory keyed by their name and, if the directory itself is covered by a directory lock, the covering lock. Children without an entry are not locked.",
+    tags = "File Lock",
+    operationId = "file_lock_get_status"
+  )
+  @ApiResponse(
+    responseCode = "200",
+    description = "success",
+    content = @Content(
+      mediaType = MEDIA_TYPE,
+      schema = @Schema(implementation = FileLockStatusDto.class)
+    )
+  )
+  @ApiResponse(responseCode = "304", description = "not modified, the locks match the given entity tag")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the push privilege on this repository")
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public Response getStatus(@Context UriInfo uriInfo,
+                            @Context Request request,
+                            @PathParam("namespace") String namespace,
+                            @PathParam("name") String name,
+                            @QueryParam("dir") @DefaultValue("") String directory) {
+    Repository repository = getRepository(namespace, name);
+    RepositoryPermissions.push(repository).check();
+
+    EntityTag entityTag = createEntityTag(uriInfo, repository);
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+    if (notModified != null) {
+      return notModified.cacheControl(revalidate()).build();
+    }
+
+    String directoryLockPath = RepositoryLocks.directoryLockPath(directory);
+    Optional<RepositoryLocks> locks = index.get(repository);
+    Map<String, FileLock> children = locks.map(l -> l.getChildren(directoryLockPath)).orElse(Map.of());
+    Optional<FileLock> covering = locks.flatMap(l -> l.getCovering(directoryLockPath));
+
+    Embedded.Builder embedded = Embedded.embeddedBuilder();
+    covering.ifPresent(fileLock -> embedded.with("coveringLock", mapper.map(repository, fileLock)));
+    String selfLink = uriInfo.getRequestUri().toString();
+    FileLockStatusDto status = new FileLockStatusDto(
+      Links.linkingTo().self(selfLink).build(),
+      embedded.build(),
+      directoryLockPath.equals("/") ? "" : directoryLockPath.substring(0, directoryLockPath.length() - 1),
+      mapper.mapAll(repository, children)
+    );
+    return Response.ok(status).tag(entityTag).cacheControl(revalidate()).build();
+  }
+
+  private void writeLine(JsonGenerator generator, FileLock fileLock) {
+    try {
+      generator.writeStartObject();
+      generator.writeStringField("path", fileLock.getPath());
+      generator.writeStringField("id", fileLock.getId());
+      generator.writeStringField("userId", fileLock.getUserId());
+      generator.writeStringField("timestamp", fileLock.getTimestamp().toString());
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 
+  private List<FileLock> findForeignLocks(Optional<RepositoryLocks> locks, String path, String username) {
+    if (locks.isEmpty()) {
+      return List.of();
+    }
+    Stream<FileLock> candidates = locks.get().getCovering(path).stream();
+    if (RepositoryLocks.isDirectoryLockPath(path)) {
+      candidates = Stream.concat(candidates, locks.get().getBelow(path).stream());
+    }
+    return candidates
+      .filter(fileLock -> !fileLock.getUserId().equals(username))
+      .collect(Collectors.toList());
+  }
+
+  private static Set<String> normalize(List<String> paths) {
+    return paths.stream().map(RepositoryLocks::normalize).collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  /**
+   * Locks the path and returns the conflicting lock, if the core rejects the lock, because
+   * the index did not know the lock of the other user yet. A new lock is added to the index
+   * by the {@link FileLockEventListener}, so the store is not read again.
+   */
+  private Optional<FileLock> tryLock(RepositoryService service, Repository repository, String path) {
+    try {
+      service.getLockCommand().lock(path).execute();
+    } catch (FileLockedException e) {
+      index.locked(repository.getId(), e.getConflictingLock());
+      return Optional.of(e.getConflictingLock());
+    }
+    return Optional.empty();
+  }
+
+  private Response conflict(Repository repository, List<FileLock> conflicts) {
+    return Response.status(Response.Status.CONFLICT)
+      .type(MEDIA_TYPE)
+      .entity(new HalRepresentation(Links.emptyLinks(), createEmbedded(repository, conflicts)))
+      .build();
+  }
+
+  private EntityTag createEntityTag(UriInfo uriInfo, Repository repository) {
+    // the owned flag and the query parameters change the response, so they are part of the tag
+    String principal = SecurityUtils.getSubject().getPrincipal().toString();
+    int variant = Objects.hash(principal, uriInfo.getRequestUri().getRawQuery());
+    return new EntityTag(index.getVersion(repository.getId()) + "-" + Integer.toHexString(variant));
+  }
+
+  private CacheControl revalidate() {
+    CacheControl cacheControl = new CacheControl();
+    cacheControl.setNoCache(true);
+    cacheControl.setPrivate(true);
+    return cacheControl;
+  }
+
+  private Stream<FileLock> filter(Repository repository, String pathPrefix, String owner) {
+    Stream<FileLock> fileLocks = index.get(repository).map(RepositoryLocks::stream).orElseGet(Stream::empty);
+    if (!Strings.isNullOrEmpty(pathPrefix)) {
+      fileLocks = fileLocks.filter(fileLock -> fileLock.getPath().startsWith(pathPrefix));
+    }
+    if (!Strings.isNullOrEmpty(owner)) {
+      fileLocks = fileLocks.filter(fileLock -> fileLock.getUserId().equals(owner));
+    }
+    return fileLocks;
+  }
+
+  private Repository getRepository(String namespace, String name) {
+    NamespaceAndName namespaceAndName = new NamespaceAndName(namespace, name);
+    Repository repository = repositoryManager.get(namespaceAndName);
+    if (repository == null) {
+      throw notFound(entity(namespaceAndName));
+    }
+    return repository;
+  }
+
   private Links createLinks(UriInfo uriInfo, Repository repository) {
     String selfLink = new RestApiLinks(uriInfo).fileLock().getAll(repository.getNamespace(), repository.getName()).asString();
     return Links.linkingTo().self(selfLink).build();
   }
 
-  private Embedded createEmbedded(RepositoryService service, Repository repository) {
-    return Embedded.embeddedBuilder().with(
-      "fileLocks",
-      service.getLockCommand().getAll().stream()
-        .map((FileLock fileLock) -> mapper.map(repository, fileLock))
-        .collect(Collectors.toList()
-      )
-    ).build();
+  private Links createPagedLinks(UriInfo uriInfo, int page, int pageTotal) {
+    Links.Builder links = Links.linkingTo().self(pageLink(uriInfo, page));
+    links.single(Link.link("first", pageLink(uriInfo, 0)));
+    if (page > 0) {
+      links.single(Link.link("prev", pageLink(uriInfo, page - 1)));
+    }
+    if (page < pageTotal - 1) {
+      links.single(Link.link("next", pageLink(uriInfo, page + 1)));
+    }
+    links.single(Link.link("last", pageLink(uriInfo, pageTotal - 1)));
+    return links.build();
+  }
+
+  private String pageLink(UriInfo uriInfo, int page) {
+    return uriInfo.getRequestUriBuilder().replaceQueryParam("page", page).build().toString();
   }
-}
 
+  private Embedded createEmbedded(Repository repository, Collection<FileLock> fileLocks) {
+    return Embedded.embeddedBuilder().with("fileLocks", mapper.mapAll(repository, fileLocks)).build();
+  }
+}
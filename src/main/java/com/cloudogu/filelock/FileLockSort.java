@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import sonia.scm.repository.api.FileLock;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+public enum FileLockSort {
+  PATH(Comparator.comparing(FileLock::getPath)),
+  TIMESTAMP(Comparator.comparing(FileLock::getTimestamp).thenComparing(FileLock::getPath)),
+  USER(Comparator.comparing(FileLock::getUserId).thenComparing(FileLock::getPath));
+
+  private final Comparator<FileLock> comparator;
+
+  FileLockSort(Comparator<FileLock> comparator) {
+    this.comparator = comparator;
+  }
+
+  public Comparator<FileLock> comparator(boolean descending) {
+    return descending ? comparator.reversed() : comparator;
+  }
+
+  public static FileLockSort fromString(String value) {
+    return valueOf(value.toUpperCase(Locale.ENGLISH));
+  }
+}
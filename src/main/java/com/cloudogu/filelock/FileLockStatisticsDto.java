@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import de.otto.edison.hal.HalRepresentation;
+import de.otto.edison.hal.Links;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+public class FileLockStatisticsDto extends HalRepresentation {
+  private final int total;
+  private final List<RepositoryCountDto> repositories;
+  private final List<UserCountDto> topLockers;
+  private final List<OldestLockDto> oldestLocks;
+
+  public FileLockStatisticsDto(Links links, int total, List<RepositoryCountDto> repositories, List<UserCountDto> topLockers, List<OldestLockDto> oldestLocks) {
+    super(links);
+    this.total = total;
+    this.repositories = repositories;
+    this.topLockers = topLockers;
+    this.oldestLocks = oldestLocks;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class RepositoryCountDto {
+    private final String namespace;
+    private final String name;
+    private final int count;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class UserCountDto {
+    private final String username;
+    private final int count;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class OldestLockDto {
+    private final String namespace;
+    private final String name;
+    private final String path;
+    private final String username;
+    private final Instant timestamp;
+  }
+}
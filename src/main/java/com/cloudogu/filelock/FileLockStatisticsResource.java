@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import de.otto.edison.hal.Links;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import sonia.scm.api.v2.resources.ErrorDto;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.web.VndMediaType;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.UriInfo;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Path("v2/file-lock")
+public class FileLockStatisticsResource {
+
+  static final int LIMIT = 10;
+
+  private final LockStatistics statistics;
+  private final RepositoryManager repositoryManager;
+
+  @Inject
+  public FileLockStatisticsResource(LockStatistics statistics, RepositoryManager repositoryManager) {
+    this.statistics = statistics;
+    this.repositoryManager = repositoryManager;
+  }
+
+  @GET
+  @Path("statistics")
+  @Produces(FileLockResource.MEDIA_TYPE)
+  @Operation(
+    summary = "Get file lock statistics",
+    description = "Returns the number of locks of the whole instance, the locks per repository, the ten users with the most locks and the ten oldest locks.",
+    tags = "File Lock",
+    operationId = "file_lock_get_statistics"
+  )
+  @ApiResponse(responseCode = "200", description = "success")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(responseCode = "403", description = "not authorized, the current user does not have the \"fileLock:read\" privilege")
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public FileLockStatisticsDto getStatistics(@Context UriInfo uriInfo) {
+    PermissionCheck.checkReadStatistics();
+
+    List<FileLockStatisticsDto.RepositoryCountDto> repositories = statistics.getRepositoryCounts().entrySet().stream()
+      .map(entry -> createRepositoryCount(entry.getKey(), entry.getValue()))
+      .filter(Objects::nonNull)
+      .sorted(Comparator.comparingInt(FileLockStatisticsDto.RepositoryCountDto::getCount).reversed())
+      .collect(Collectors.toList());
+    List<FileLockStatisticsDto.UserCountDto> topLockers = statistics.getTopUsers(LIMIT).stream()
+      .map(user -> new FileLockStatisticsDto.UserCountDto(user.getUserId(), user.getCount()))
+      .collect(Collectors.toList());
+    List<FileLockStatisticsDto.OldestLockDto> oldestLocks = statistics.getOldest(LIMIT).stream()
+      .map(this::createOldestLock)
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+
+    RestApiLinks restApiLinks = new RestApiLinks(uriInfo);
+    return new FileLockStatisticsDto(
+      Links.linkingTo().self(restApiLinks.fileLockStatistics().getStatistics().asString()).build(),
+      statistics.getTotal(),
+      repositories,
+      topLockers,
+      oldestLocks
+    );
+  }
+
+  private FileLockStatisticsDto.RepositoryCountDto createRepositoryCount(String repositoryId, int count) {
+    Repository repository = repositoryManager.get(repositoryId);
+    if (repository == null) {
+      return null;
+    }
+    return new FileLockStatisticsDto.RepositoryCountDto(repository.getNamespace(), repository.getName(), count);
+  }
+
+  private FileLockStatisticsDto.OldestLockDto createOldestLock(LockStatistics.RepositoryLock lock) {
+    Repository repository = repositoryManager.get(lock.getRepositoryId());
+    if (repository == null) {
+      return null;
+    }
+    return new FileLockStatisticsDto.OldestLockDto(
+      repository.getNamespace(),
+      repository.getName(),
+      lock.getFileLock().getPath(),
+      lock.getFileLock().getUserId(),
+      lock.getFileLock().getTimestamp()
+    );
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.Command;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers per repository type whether file locks are supported, so that a repository service
+ * has to be opened only once for each type.
+ */
+@Singleton
+public class FileLockSupport {
+
+  private final RepositoryServiceFactory serviceFactory;
+  private final Map<String, Boolean> supportedTypes = new ConcurrentHashMap<>();
+
+  @Inject
+  public FileLockSupport(RepositoryServiceFactory serviceFactory) {
+    this.serviceFactory = serviceFactory;
+  }
+
+  public boolean isSupported(Repository repository) {
+    return supportedTypes.computeIfAbsent(repository.getType(), type -> check(repository));
+  }
+
+  private boolean check(Repository repository) {
+    try (RepositoryService service = serviceFactory.create(repository)) {
+      return service.isSupported(Command.FILE_LOCK);
+    }
+  }
+}
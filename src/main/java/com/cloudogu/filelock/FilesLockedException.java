@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import sonia.scm.ExceptionWithContext;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.FileLock;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static sonia.scm.ContextEntry.ContextBuilder.entity;
+
+/**
+ * Rejects a push, which changes files locked by other users. The message lists only the first
+ * conflicts, every single conflict is reported by the hook messages.
+ */
+public class FilesLockedException extends ExceptionWithContext {
+
+  private static final String CODE = "4bTVn1QzS1";
+  static final int MAX_LISTED_CONFLICTS = 20;
+
+  public FilesLockedException(Repository repository, Map<String, FileLock> conflicts) {
+    super(entity(repository.getNamespaceAndName()).build(), createMessage(conflicts));
+  }
+
+  private static String createMessage(Map<String, FileLock> conflicts) {
+    String more = conflicts.size() > MAX_LISTED_CONFLICTS ? ", and " + (conflicts.size() - MAX_LISTED_CONFLICTS) + " more" : "";
+    return conflicts.entrySet().stream()
+      .limit(MAX_LISTED_CONFLICTS)
+      .map(entry -> String.format("%s (locked by %s)", entry.getKey(), entry.getValue().getUserId()))
+      .collect(Collectors.joining(", ", "push changes " + conflicts.size() + " files locked by other users: ", more));
+  }
+
+  @Override
+  public String getCode() {
+    return CODE;
+  }
+}
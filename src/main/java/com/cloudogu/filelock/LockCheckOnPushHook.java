@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import com.github.legman.Subscribe;
+import org.apache.shiro.SecurityUtils;
+import sonia.scm.EagerSingleton;
+import sonia.scm.plugin.Extension;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.PreReceiveRepositoryHookEvent;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.Command;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.HookContext;
+import sonia.scm.repository.api.HookFeature;
+import sonia.scm.repository.api.HookMessageProvider;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Rejects pushes changing files, which are locked by other users. Every changed path is
+ * checked once against the lock index, which finds the lock of the file or of a directory
+ * above by walking down the path, so the check does not depend on the number of locks.
+ * The check does not depend on the repository configuration, which only hides the locks in
+ * the ui, because the core itself does not enforce locks of directories.
+ */
+@Extension
+@EagerSingleton
+public class LockCheckOnPushHook {
+
+  private final RepositoryServiceFactory serviceFactory;
+  private final FileLockIndex index;
+
+  @Inject
+  public LockCheckOnPushHook(RepositoryServiceFactory serviceFactory, FileLockIndex index) {
+    this.serviceFactory = serviceFactory;
+    this.index = index;
+  }
+
+  @Subscribe(async = false)
+  public void handle(PreReceiveRepositoryHookEvent event) {
+    Repository repository = event.getRepository();
+    HookContext context = event.getContext();
+    if (!context.isFeatureSupported(HookFeature.CHANGESET_PROVIDER)) {
+      return;
+    }
+    Optional<RepositoryLocks> locks = index.get(repository);
+    if (locks.isEmpty() || locks.get().size() == 0) {
+      return;
+    }
+
+    // without a principal no lock belongs to the pusher, so every lock conflicts
+    Object principal = SecurityUtils.getSubject().getPrincipal();
+    String pusher = principal == null ? null : principal.toString();
+    Map<String, FileLock> conflicts = findConflicts(repository, context.getChangesetProvider().getChangesets(), locks.get(), pusher);
+    if (!conflicts.isEmpty()) {
+      if (context.isFeatureSupported(HookFeature.MESSAGE_PROVIDER)) {
+        HookMessageProvider messageProvider = context.getMessageProvider();
+        conflicts.forEach((path, fileLock) -> messageProvider.sendError(path + " is locked by " + fileLock.getUserId()));
+      }
+      throw new FilesLockedException(repository, conflicts);
+    }
+  }
+
+  private Map<String, FileLock> findConflicts(Repository repository, Iterable<Changeset> changesets, RepositoryLocks locks, String pusher) {
+    Map<String, FileLock> conflicts = new TreeMap<>();
+    Set<String> checked = new HashSet<>();
+    try (RepositoryService service = serviceFactory.create(repository)) {
+      if (!service.isSupported(Command.MODIFICATIONS)) {
+        return conflicts;
+      }
+      for (Changeset changeset : changesets) {
+        for (String path : service.getModificationsCommand().revision(changeset.getId()).getModifications().getEffectedPaths()) {
+          if (checked.add(path)) {
+            locks.getCovering(path)
+              .filter(fileLock -> !fileLock.getUserId().equals(pusher))
+              .ifPresent(fileLock -> conflicts.put(path, fileLock));
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("could not read modifications of pushed changesets", e);
+    }
+    return conflicts;
+  }
+}
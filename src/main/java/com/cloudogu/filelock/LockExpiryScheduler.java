@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import sonia.scm.plugin.Extension;
+import sonia.scm.schedule.Scheduler;
+import sonia.scm.web.security.AdministrationContext;
+
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+
+@Extension
+public class LockExpiryScheduler implements ServletContextListener {
+
+  // every minute, the sweep is cheap if no lock is due
+  private static final String EXPRESSION = "0 * * * * ?";
+
+  private final Scheduler scheduler;
+  private final AdministrationContext administrationContext;
+  private final LockExpirySweeper sweeper;
+
+  @Inject
+  public LockExpiryScheduler(Scheduler scheduler, AdministrationContext administrationContext, LockExpirySweeper sweeper) {
+    this.scheduler = scheduler;
+    this.administrationContext = administrationContext;
+    this.sweeper = sweeper;
+  }
+
+  @Override
+  public void contextInitialized(ServletContextEvent sce) {
+    scheduler.schedule(EXPRESSION, () -> administrationContext.runAsAdmin(sweeper::sweep));
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent sce) {
+    // the scheduler stops all jobs on shutdown
+  }
+}
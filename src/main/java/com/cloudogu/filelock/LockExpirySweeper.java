@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Releases locks which are older than the time to live configured for their repository.
+ * The locks are kept in a queue ordered by their expiry, so a sweep only touches locks
+ * which are actually due. Entries which became stale, because the file was unlocked or
+ * locked again, are skipped when they reach the head of the queue. The locks of existing
+ * repositories are scheduled by the first sweep, so that the startup is not blocked.
+ */
+@Singleton
+public class LockExpirySweeper {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LockExpirySweeper.class);
+
+  private final RepositoryManager repositoryManager;
+  private final RepositoryConfigStore configStore;
+  private final RepositoryServiceFactory serviceFactory;
+  private final FileLockIndex index;
+  private final Clock clock;
+
+  private final PriorityQueue<Expiry> queue = new PriorityQueue<>(Comparator.comparing(Expiry::getExpiresAt));
+  private final Map<String, Expiry> scheduled = new HashMap<>();
+  private volatile boolean initialized;
+
+  @Inject
+  public LockExpirySweeper(RepositoryManager repositoryManager, RepositoryConfigStore configStore, RepositoryServiceFactory serviceFactory, FileLockIndex index) {
+    this(repositoryManager, configStore, serviceFactory, index, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  LockExpirySweeper(RepositoryManager repositoryManager, RepositoryConfigStore configStore, RepositoryServiceFactory serviceFactory, FileLockIndex index, Clock clock) {
+    this.repositoryManager = repositoryManager;
+    this.configStore = configStore;
+    this.serviceFactory = serviceFactory;
+    this.index = index;
+    this.clock = clock;
+  }
+
+
+  /**
+   * Schedules all locks of the repository again, e.g. after the time to live has changed.
+   */
+  public void reschedule(Repository repository) {
+    if (getTtl(repository).isPresent()) {
+      index.get(repository).ifPresent(locks -> locks.stream().forEach(fileLock -> schedule(repository, fileLock)));
+    }
+  }
+
+  public void locked(String repositoryId, FileLock fileLock) {
+    Repository repository = repositoryManager.get(repositoryId);
+    if (repository != null) {
+      schedule(repository, fileLock);
+    }
+  }
+
+  /**
+   * Releases all expired locks. Has to be called with administrative privileges.
+   */
+  public void sweep() {
+    if (!initialized) {
+      initialize();
+    }
+    for (Expiry expiry : pollExpired()) {
+      try {
+        Repository repository = repositoryManager.get(expiry.repositoryId);
+        if (repository != null && isCurrent(repository, expiry)) {
+          release(repository, expiry.path);
+        }
+      } catch (RuntimeException e) {
+        LOG.warn("failed to release expired lock of {} in repository {}, retrying with the next sweep", expiry.path, expiry.repositoryId, e);
+        retry(expiry);
+      }
+    }
+  }
+
+  private void initialize() {
+    repositoryManager.getAll().forEach(this::reschedule);
+    initialized = true;
+  }
+
+  private void schedule(Repository repository, FileLock fileLock) {
+    getTtl(repository).ifPresent(ttl -> enqueue(new Expiry(repository.getId(), fileLock, fileLock.getTimestamp().plus(ttl))));
+  }
+
+  private synchronized void enqueue(Expiry expiry) {
+    scheduled.put(expiry.key(), expiry);
+    queue.add(expiry);
+  }
+
+  private synchronized void retry(Expiry expiry) {
+    // the lock may have been scheduled again in the meantime
+    if (scheduled.putIfAbsent(expiry.key(), expiry) == null) {
+      queue.add(expiry);
+    }
+  }
+
+  private synchronized List<Expiry> pollExpired() {
+    Instant now = clock.instant();
+    List<Expiry> expired = new ArrayList<>();
+    while (!queue.isEmpty() && !queue.peek().getExpiresAt().isAfter(now)) {
+      Expiry expiry = queue.poll();
+      if (scheduled.remove(expiry.key(), expiry)) {
+        expired.add(expiry);
+      }
+    }
+    return expired;
+  }
+
+  private boolean isCurrent(Repository repository, Expiry expiry) {
+    boolean stillLocked = index.get(repository)
+      .flatMap(locks -> locks.get(expiry.path))
+      .filter(fileLock -> fileLock.getTimestamp().equals(expiry.lockedAt))
+      .isPresent();
+    if (!stillLocked) {
+      return false;
+    }
+    Optional<Duration> ttl = getTtl(repository);
+    if (ttl.isEmpty()) {
+      return false;
+    }
+    Instant expiresAt = expiry.lockedAt.plus(ttl.get());
+    if (expiresAt.isAfter(clock.instant())) {
+      // the time to live was raised since the lock has been scheduled
+      enqueue(new Expiry(expiry.repositoryId, expiry.path, expiry.lockedAt, expiresAt));
+      return false;
+    }
+    return true;
+  }
+
+  private void release(Repository repository, String path) {
+    LOG.info("releasing expired lock of {} in repository {}", path, repository);
+    try (RepositoryService service = serviceFactory.create(repository)) {
+      service.getLockCommand().unlock(path).force(true).execute();
+    }
+    index.unlocked(repository.getId(), path);
+  }
+
+  private Optional<Duration> getTtl(Repository repository) {
+    int hours = configStore.getConfig(repository).getLockTtlHours();
+    return hours > 0 ? Optional.of(Duration.ofHours(hours)) : Optional.empty();
+  }
+
+  private static class Expiry {
+    private final String repositoryId;
+    private final String path;
+    private final Instant lockedAt;
+    private final Instant expiresAt;
+
+    private Expiry(String repositoryId, FileLock fileLock, Instant expiresAt) {
+      this(repositoryId, fileLock.getPath(), fileLock.getTimestamp(), expiresAt);
+    }
+
+    private Expiry(String repositoryId, String path, Instant lockedAt, Instant expiresAt) {
+      this.repositoryId = repositoryId;
+      this.path = path;
+      this.lockedAt = lockedAt;
+      this.expiresAt = expiresAt;
+    }
+
+    private Instant getExpiresAt() {
+      return expiresAt;
+    }
+
+    private String key() {
+      return repositoryId + ":" + path;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import sonia.scm.repository.api.FileLock;
+
+import jakarta.inject.Singleton;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Aggregated numbers of the locks of all repositories. Like the {@link UserFileLocks} the
+ * numbers are maintained by the {@link FileLockIndex} with every change. The rankings are
+ * kept sorted, so reading them only touches the requested entries.
+ */
+@Singleton
+public class LockStatistics {
+
+  private static final Comparator<UserCount> BY_COUNT = Comparator.comparingInt(UserCount::getCount).reversed()
+    .thenComparing(UserCount::getUserId);
+  private static final Comparator<RepositoryLock> BY_AGE = Comparator.<RepositoryLock, Instant>comparing(lock -> lock.fileLock.getTimestamp())
+    .thenComparing(lock -> lock.repositoryId)
+    .thenComparing(lock -> lock.fileLock.getPath());
+
+  private int total;
+  private final Map<String, Integer> repositories = new HashMap<>();
+  private final Map<String, UserCount> users = new HashMap<>();
+  private final TreeSet<UserCount> topUsers = new TreeSet<>(BY_COUNT);
+  private final TreeSet<RepositoryLock> oldest = new TreeSet<>(BY_AGE);
+
+  public synchronized int getTotal() {
+    return total;
+  }
+
+  public synchronized Map<String, Integer> getRepositoryCounts() {
+    return Map.copyOf(repositories);
+  }
+
+  public synchronized List<UserCount> getTopUsers(int limit) {
+    List<UserCount> top = new ArrayList<>(limit);
+    Iterator<UserCount> iterator = topUsers.iterator();
+    while (iterator.hasNext() && top.size() < limit) {
+      top.add(iterator.next());
+    }
+    return top;
+  }
+
+  public synchronized List<RepositoryLock> getOldest(int limit) {
+    List<RepositoryLock> locks = new ArrayList<>(limit);
+    Iterator<RepositoryLock> iterator = oldest.iterator();
+    while (iterator.hasNext() && locks.size() < limit) {
+      locks.add(iterator.next());
+    }
+    return locks;
+  }
+
+  synchronized void added(String repositoryId, FileLock fileLock) {
+    total++;
+    repositories.merge(repositoryId, 1, Integer::sum);
+    updateUser(fileLock.getUserId(), 1);
+    oldest.add(new RepositoryLock(repositoryId, fileLock));
+  }
+
+  synchronized void removed(String repositoryId, FileLock fileLock) {
+    if (oldest.remove(new RepositoryLock(repositoryId, fileLock))) {
+      total--;
+      repositories.computeIfPresent(repositoryId, (id, count) -> count > 1 ? count - 1 : null);
+      updateUser(fileLock.getUserId(), -1);
+    }
+  }
+
+  private void updateUser(String userId, int delta) {
+    UserCount current = users.get(userId);
+    int count = (current == null ? 0 : current.count) + delta;
+    if (current != null) {
+      topUsers.remove(current);
+    }
+    if (count > 0) {
+      UserCount updated = new UserCount(userId, count);
+      users.put(userId, updated);
+      topUsers.add(updated);
+    } else {
+      users.remove(userId);
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class UserCount {
+    private final String userId;
+    private final int count;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class RepositoryLock {
+    private final String repositoryId;
+    private final FileLock fileLock;
+  }
+}
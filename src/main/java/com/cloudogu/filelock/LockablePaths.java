@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Matcher for the paths which may be locked, compiled from glob patterns like
+ * {@code **}{@code /*.psd} or {@code assets/**}{@code /*.{fbx,blend}}. All patterns are
+ * combined into a single regular expression, so that each path is matched only once.
+ * Without patterns all paths are lockable.
+ */
+final class LockablePaths {
+
+  private static final String SPECIAL_CHARACTERS = "\\.[]{}()<>*+-=!?^$|";
+  private static final LockablePaths ALL = new LockablePaths(null);
+
+  private final Pattern pattern;
+
+  private LockablePaths(Pattern pattern) {
+    this.pattern = pattern;
+  }
+
+  static LockablePaths compile(Collection<String> globs) {
+    List<String> expressions = globs.stream()
+      .map(String::trim)
+      .filter(glob -> !glob.isEmpty())
+      .map(glob -> "(?:" + toRegex(glob) + ")")
+      .collect(Collectors.toList());
+    if (expressions.isEmpty()) {
+      return ALL;
+    }
+    return new LockablePaths(Pattern.compile(String.join("|", expressions)));
+  }
+
+  boolean isLockable(String path) {
+    return pattern == null || pattern.matcher(path).matches();
+  }
+
+  /**
+   * A directory is lockable, if a path below it could match one of the patterns.
+   */
+  boolean isLockableDirectory(String path) {
+    if (pattern == null) {
+      return true;
+    }
+    Matcher matcher = pattern.matcher(RepositoryLocks.directoryLockPath(path));
+    return matcher.matches() || matcher.hitEnd();
+  }
+
+  static String toRegex(String glob) {
+    StringBuilder regex = new StringBuilder();
+    int alternatives = 0;
+    String path = glob.startsWith("/") ? glob.substring(1) : glob;
+    for (int i = 0; i < path.length(); i++) {
+      char c = path.charAt(i);
+      if (c == '*') {
+        if (i + 1 < path.length() && path.charAt(i + 1) == '*') {
+          i++;
+          if (i + 1 < path.length() && path.charAt(i + 1) == '/') {
+            i++;
+            regex.append("(?:.*/)?");
+          } else {
+            regex.append(".*");
+          }
+        } else {
+          regex.append("[^/]*");
+        }
+      } else if (c == '?') {
+        regex.append("[^/]");
+      } else if (c == '{') {
+        alternatives++;
+        regex.append("(?:");
+      } else if (c == '}' && alternatives > 0) {
+        alternatives--;
+        regex.append(')');
+      } else if (c == ',' && alternatives > 0) {
+        regex.append('|');
+      } else {
+        if (SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+          regex.append('\\');
+        }
+        regex.append(c);
+      }
+    }
+    for (; alternatives > 0; alternatives--) {
+      regex.append(')');
+    }
+    return regex.toString();
+  }
+}
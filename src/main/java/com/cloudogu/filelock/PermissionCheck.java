@@ -16,6 +16,7 @@
 
 package com.cloudogu.filelock;
 
+import org.apache.shiro.SecurityUtils;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryPermissions;
 
@@ -24,6 +25,7 @@ public class PermissionCheck {
   private PermissionCheck() {}
 
   public static final String CONFIGURE_FILE_LOCK = "configureFileLock";
+  public static final String READ_STATISTICS = "fileLock:read";
 
   public static boolean mayConfigure(Repository repository) {
     return RepositoryPermissions.custom(CONFIGURE_FILE_LOCK, repository).isPermitted();
@@ -32,4 +34,12 @@ public class PermissionCheck {
   public static void checkConfigure(Repository repository) {
     RepositoryPermissions.custom(CONFIGURE_FILE_LOCK, repository).check();
   }
+
+  public static boolean mayReadStatistics() {
+    return SecurityUtils.getSubject().isPermitted(READ_STATISTICS);
+  }
+
+  public static void checkReadStatistics() {
+    SecurityUtils.getSubject().checkPermission(READ_STATISTICS);
+  }
 }
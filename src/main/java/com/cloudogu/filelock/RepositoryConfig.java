@@ -18,6 +18,7 @@ package com.cloudogu.filelock;
 
 import com.cloudogu.conveyor.GenerateDto;
 import com.cloudogu.conveyor.Include;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -25,6 +26,9 @@ import lombok.Setter;
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
 import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
+import java.util.ArrayList;
+import java.util.List;
 
 @XmlRootElement
 @XmlAccessorType(XmlAccessType.FIELD)
@@ -35,4 +39,50 @@ import jakarta.xml.bind.annotation.XmlRootElement;
 public class RepositoryConfig {
   @Include
   private boolean enabled = true;
+  @Include
+  private List<String> lockablePatterns = new ArrayList<>();
+  // locks older than this are released, zero keeps locks forever
+  @Include
+  private int lockTtlHours = 0;
+  // releases the locks of the pusher on the files changed by a push
+  @Include
+  private boolean unlockOnPush = false;
+
+  // compiled once per cached config and shared with its copies
+  @XmlTransient
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile LockablePaths lockablePaths;
+
+  public void setLockablePatterns(List<String> lockablePatterns) {
+    this.lockablePatterns = lockablePatterns;
+    this.lockablePaths = null;
+  }
+
+  public boolean isLockable(String path, boolean directory) {
+    LockablePaths paths = compiledLockablePaths();
+    return directory ? paths.isLockableDirectory(path) : paths.isLockable(path);
+  }
+
+  /**
+   * Returns an independent copy, which shares the compiled patterns with this config.
+   */
+  RepositoryConfig copy() {
+    RepositoryConfig copy = new RepositoryConfig();
+    copy.enabled = enabled;
+    copy.lockablePatterns = lockablePatterns == null ? new ArrayList<>() : new ArrayList<>(lockablePatterns);
+    copy.lockTtlHours = lockTtlHours;
+    copy.unlockOnPush = unlockOnPush;
+    copy.lockablePaths = compiledLockablePaths();
+    return copy;
+  }
+
+  private LockablePaths compiledLockablePaths() {
+    LockablePaths paths = lockablePaths;
+    if (paths == null) {
+      paths = LockablePaths.compile(lockablePatterns == null ? List.of() : lockablePatterns);
+      lockablePaths = paths;
+    }
+    return paths;
+  }
 }
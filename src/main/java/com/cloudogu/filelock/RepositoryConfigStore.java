@@ -16,30 +16,50 @@
 
 package com.cloudogu.filelock;
 
+import sonia.scm.cache.Cache;
+import sonia.scm.cache.CacheManager;
 import sonia.scm.repository.Repository;
 import sonia.scm.store.ConfigurationStore;
 import sonia.scm.store.ConfigurationStoreFactory;
 
 import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 
+@Singleton
 public class RepositoryConfigStore {
 
   private static final String STORE_NAME = "lock-config";
+  private static final String CACHE_NAME = "sonia.cache.fileLock.config";
 
   private final ConfigurationStoreFactory configurationStoreFactory;
+  private final Cache<String, RepositoryConfig> cache;
 
   @Inject
-  public RepositoryConfigStore(ConfigurationStoreFactory configurationStoreFactory) {
+  public RepositoryConfigStore(ConfigurationStoreFactory configurationStoreFactory, CacheManager cacheManager) {
     this.configurationStoreFactory = configurationStoreFactory;
+    this.cache = cacheManager.getCache(CACHE_NAME);
   }
 
+  /**
+   * Returns a copy of the config, so that changes of callers never reach the cached config.
+   */
   public RepositoryConfig getConfig(Repository repository) {
-    return createStore(repository).getOptional().orElse(new RepositoryConfig());
+    RepositoryConfig config = cache.get(repository.getId());
+    if (config == null) {
+      config = createStore(repository).getOptional().orElse(new RepositoryConfig());
+      cache.put(repository.getId(), config);
+    }
+    return config.copy();
   }
 
   public void updateConfig(Repository repository, RepositoryConfig config) {
     PermissionCheck.checkConfigure(repository);
     createStore(repository).set(config);
+    cache.remove(repository.getId());
+  }
+
+  void invalidate(String repositoryId) {
+    cache.remove(repositoryId);
   }
 
   private ConfigurationStore<RepositoryConfig> createStore(Repository repository) {
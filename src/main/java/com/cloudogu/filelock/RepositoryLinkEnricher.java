@@ -20,13 +20,9 @@ import sonia.scm.api.v2.resources.Enrich;
 import sonia.scm.api.v2.resources.HalAppender;
 import sonia.scm.api.v2.resources.HalEnricher;
 import sonia.scm.api.v2.resources.HalEnricherContext;
-import sonia.scm.api.v2.resources.ScmPathInfoStore;
 import sonia.scm.plugin.Extension;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryPermissions;
-import sonia.scm.repository.api.Command;
-import sonia.scm.repository.api.RepositoryService;
-import sonia.scm.repository.api.RepositoryServiceFactory;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
@@ -35,40 +31,62 @@ import jakarta.inject.Provider;
 @Enrich(Repository.class)
 public class RepositoryLinkEnricher implements HalEnricher {
 
-  private final Provider<ScmPathInfoStore> scmPathInfoStoreProvider;
-  private final RepositoryServiceFactory serviceFactory;
+  private final Provider<FileLockRequestContext> requestContext;
+  private final FileLockSupport fileLockSupport;
   private final RepositoryConfigStore configStore;
+  private final FileLockMetrics metrics;
 
   @Inject
-  public RepositoryLinkEnricher(Provider<ScmPathInfoStore> scmPathInfoStoreProvider, RepositoryServiceFactory serviceFactory, RepositoryConfigStore configStore) {
-    this.scmPathInfoStoreProvider = scmPathInfoStoreProvider;
-    this.serviceFactory = serviceFactory;
+  public RepositoryLinkEnricher(Provider<FileLockRequestContext> requestContext, FileLockSupport fileLockSupport, RepositoryConfigStore configStore, FileLockMetrics metrics) {
+    this.requestContext = requestContext;
+    this.fileLockSupport = fileLockSupport;
     this.configStore = configStore;
+    this.metrics = metrics;
   }
 
   @Override
   public void enrich(HalEnricherContext context, HalAppender appender) {
     Repository repository = context.oneRequireByType(Repository.class);
-    appendLinks(appender, repository);
+    metrics.record(FileLockMetrics.REPOSITORY_ENRICHER, () -> appendLinks(appender, repository));
   }
 
   private void appendLinks(HalAppender appender, Repository repository) {
-    RestApiLinks restApiLinks = new RestApiLinks(scmPathInfoStoreProvider.get().get().getApiRestUri());
+    boolean appendFileLockLinks = shouldAppendLinks(repository);
+    boolean appendConfigLink = PermissionCheck.mayConfigure(repository);
 
-    try (RepositoryService service = serviceFactory.create(repository)) {
-      if (service.isSupported(Command.FILE_LOCK)) {
-        if (shouldAppendLinks(repository)) {
-          appender.appendLink(
-            "fileLocks",
-            restApiLinks.fileLock().getAll(repository.getNamespace(), repository.getName()).asString()
-          );
-        }
-        if (PermissionCheck.mayConfigure(repository)) {
-          appender.appendLink(
-            "fileLockConfig",
-            restApiLinks.fileLockConfig().getRepositoryConfig(repository.getNamespace(), repository.getName()).asString()
-          );
-        }
+    if ((appendFileLockLinks || appendConfigLink) && fileLockSupport.isSupported(repository)) {
+      RestApiLinks restApiLinks = requestContext.get().getRestApiLinks();
+      if (appendFileLockLinks) {
+        appender.appendLink(
+          "fileLocks",
+          restApiLinks.fileLock().getAll(repository.getNamespace(), repository.getName()).asString()
+        );
+        appender.appendLink(
+          "lockFiles",
+          restApiLinks.fileLock().lockFiles(repository.getNamespace(), repository.getName()).asString()
+        );
+        appender.appendLink(
+          "unlockFiles",
+          restApiLinks.fileLock().unlockFiles(repository.getNamespace(), repository.getName()).asString()
+        );
+        appender.appendLink(
+          "fileLockConflicts",
+          restApiLinks.fileLock().getConflicts(repository.getNamespace(), repository.getName()).asString()
+        );
+        appender.appendLink(
+          "fileLockEvents",
+          restApiLinks.fileLock().events(repository.getNamespace(), repository.getName()).asString()
+        );
+        appender.appendLink(
+          "fileLockStatus",
+          restApiLinks.fileLock().getStatus(repository.getNamespace(), repository.getName()).asString()
+        );
+      }
+      if (appendConfigLink) {
+        appender.appendLink(
+          "fileLockConfig",
+          restApiLinks.fileLockConfig().getRepositoryConfig(repository.getNamespace(), repository.getName()).asString()
+        );
       }
     }
   }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import sonia.scm.repository.api.FileLock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory view of all file locks of a single repository, keyed by path. Locks with a path
+ * ending with a slash are directory locks, which cover all files and directories below.
+ * Besides the map, all locks are kept in a trie of path segments, so that the lock covering
+ * a path can be found by walking down the path once. Every node of the trie counts the locks
+ * at or below it, so the number of locks inside a directory needs no scan either. The map
+ * and the trie are keyed by the normalized path, so that paths differing only in leading or
+ * duplicate slashes share one entry.
+ */
+public class RepositoryLocks {
+
+  private static final String SEPARATOR = "/";
+
+  private final Map<String, FileLock> locks = new ConcurrentHashMap<>();
+  private final Node root = new Node();
+
+  RepositoryLocks(Collection<FileLock> fileLocks) {
+    fileLocks.forEach(this::put);
+  }
+
+  public static boolean isDirectoryLockPath(String path) {
+    return path.endsWith(SEPARATOR);
+  }
+
+  public static String directoryLockPath(String path) {
+    String directory = path;
+    while (directory.startsWith(SEPARATOR)) {
+      directory = directory.substring(1);
+    }
+    return isDirectoryLockPath(directory) ? directory : directory + SEPARATOR;
+  }
+
+  /**
+   * Removes leading and duplicate slashes from the path. The trailing slash of a directory
+   * lock path is kept.
+   */
+  public static String normalize(String path) {
+    String normalized = String.join(SEPARATOR, segments(path));
+    if (isDirectoryLockPath(path)) {
+      return normalized.isEmpty() ? SEPARATOR : normalized + SEPARATOR;
+    }
+    return normalized;
+  }
+
+  public Optional<FileLock> get(String path) {
+    return Optional.ofNullable(locks.get(normalize(path)));
+  }
+
+  /**
+   * Returns the lock of the outermost locked directory above the given path or the lock of
+   * the path itself.
+   */
+  public Optional<FileLock> getCovering(String path) {
+    boolean directory = isDirectoryLockPath(path);
+    String[] segments = segments(path);
+    Node node = root;
+    if (node.directoryLock != null) {
+      return Optional.of(node.directoryLock);
+    }
+    for (int i = 0; i < segments.length; i++) {
+      node = node.children.get(segments[i]);
+      if (node == null) {
+        return Optional.empty();
+      }
+      FileLock directoryLock = node.directoryLock;
+      if (directoryLock != null && (directory || i < segments.length - 1)) {
+        return Optional.of(directoryLock);
+      }
+    }
+    return directory ? Optional.empty() : Optional.ofNullable(node.fileLock);
+  }
+
+  /**
+   * Returns all locks of files and directories below the given directory, without the lock
+   * of the directory itself.
+   */
+  public List<FileLock> getBelow(String directory) {
+    Node node = find(directory);
+    if (node == null) {
+      return List.of();
+    }
+    List<FileLock> below = new ArrayList<>();
+    Deque<Node> nodes = new ArrayDeque<>(node.children.values());
+    while (!nodes.isEmpty()) {
+      Node current = nodes.pop();
+      Optional.ofNullable(current.fileLock).ifPresent(below::add);
+      Optional.ofNullable(current.directoryLock).ifPresent(below::add);
+      nodes.addAll(current.children.values());
+    }
+    return below;
+  }
+
+  /**
+   * Returns the locks of the files and directories directly inside the given directory,
+   * keyed by their name. Locks of directories above are not taken into account.
+   */
+  public Map<String, FileLock> getChildren(String directory) {
+    Node node = find(directory);
+    if (node == null) {
+      return Map.of();
+    }
+    Map<String, FileLock> children = new TreeMap<>();
+    node.children.forEach((name, child) -> {
+      Optional.ofNullable(child.fileLock).ifPresent(fileLock -> children.put(name, fileLock));
+      Optional.ofNullable(child.directoryLock).ifPresent(fileLock -> children.put(name, fileLock));
+    });
+    return children;
+  }
+
+  /**
+   * Returns the number of locks of files and directories below the given directory, without
+   * the lock of the directory itself.
+   */
+  public int countBelow(String directory) {
+    Node node = find(directory);
+    if (node == null) {
+      return 0;
+    }
+    return node.count - (node.fileLock == null ? 0 : 1) - (node.directoryLock == null ? 0 : 1);
+  }
+
+  public Collection<FileLock> getAll() {
+    return List.copyOf(locks.values());
+  }
+
+  public Stream<FileLock> stream() {
+    return locks.values().stream();
+  }
+
+  public int size() {
+    return locks.size();
+  }
+
+  synchronized Optional<FileLock> put(FileLock fileLock) {
+    String path = normalize(fileLock.getPath());
+    FileLock previous = locks.put(path, fileLock);
+    int added = previous == null ? 1 : 0;
+    Node node = root;
+    node.count += added;
+    for (String segment : segments(path)) {
+      node = node.children.computeIfAbsent(segment, s -> new Node());
+      node.count += added;
+    }
+    if (isDirectoryLockPath(path)) {
+      node.directoryLock = fileLock;
+    } else {
+      node.fileLock = fileLock;
+    }
+    return Optional.ofNullable(previous);
+  }
+
+  synchronized Optional<FileLock> remove(String lockPath) {
+    String path = normalize(lockPath);
+    FileLock removed = locks.remove(path);
+    if (removed == null) {
+      return Optional.empty();
+    }
+    String[] segments = segments(path);
+    Node[] nodes = new Node[segments.length + 1];
+    nodes[0] = root;
+    root.count--;
+    for (int i = 0; i < segments.length; i++) {
+      nodes[i + 1] = nodes[i].children.get(segments[i]);
+      nodes[i + 1].count--;
+    }
+    Node node = nodes[segments.length];
+    if (isDirectoryLockPath(path)) {
+      node.directoryLock = null;
+    } else {
+      node.fileLock = null;
+    }
+    // prune the branch as long as it does not lead to other locks
+    for (int i = segments.length; i > 0 && nodes[i].isEmpty(); i--) {
+      nodes[i - 1].children.remove(segments[i - 1]);
+    }
+    return Optional.of(removed);
+  }
+
+  private Node find(String directory) {
+    Node node = root;
+    for (String segment : segments(directory)) {
+      node = node.children.get(segment);
+      if (node == null) {
+        return null;
+      }
+    }
+    return node;
+  }
+
+  private static String[] segments(String path) {
+    return Stream.of(path.split(SEPARATOR)).filter(segment -> !segment.isEmpty()).toArray(String[]::new);
+  }
+
+  private static class Node {
+    private final Map<String, Node> children = new ConcurrentHashMap<>();
+    private volatile FileLock fileLock;
+    private volatile FileLock directoryLock;
+    private volatile int count;
+
+    private boolean isEmpty() {
+      return fileLock == null && directoryLock == null && children.isEmpty();
+    }
+  }
+}
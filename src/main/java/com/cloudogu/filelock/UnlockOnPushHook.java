@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import com.github.legman.Subscribe;
+import org.apache.shiro.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.EagerSingleton;
+import sonia.scm.plugin.Extension;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.PostReceiveRepositoryHookEvent;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.Command;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.HookFeature;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Releases the locks of the pusher on all files changed by a push, if enabled for the
+ * repository. The modifications are only read if the pusher holds locks in the repository.
+ */
+@Extension
+@EagerSingleton
+public class UnlockOnPushHook {
+
+  private static final Logger LOG = LoggerFactory.getLogger(UnlockOnPushHook.class);
+
+  private final RepositoryConfigStore configStore;
+  private final RepositoryServiceFactory serviceFactory;
+  private final FileLockIndex index;
+
+  @Inject
+  public UnlockOnPushHook(RepositoryConfigStore configStore, RepositoryServiceFactory serviceFactory, FileLockIndex index) {
+    this.configStore = configStore;
+    this.serviceFactory = serviceFactory;
+    this.index = index;
+  }
+
+  @Subscribe(async = false)
+  public void handle(PostReceiveRepositoryHookEvent event) {
+    Repository repository = event.getRepository();
+    RepositoryConfig config = configStore.getConfig(repository);
+    if (!config.isEnabled() || !config.isUnlockOnPush() || !event.getContext().isFeatureSupported(HookFeature.CHANGESET_PROVIDER)) {
+      return;
+    }
+    Object principal = SecurityUtils.getSubject().getPrincipal();
+    if (principal == null) {
+      return;
+    }
+    // the locks of the repository are used, because the locks of the user may be incomplete after startup
+    Set<String> lockedPaths = index.get(repository).map(RepositoryLocks::stream).orElseGet(Stream::empty)
+      .filter(fileLock -> fileLock.getUserId().equals(principal.toString()))
+      .map(FileLock::getPath)
+      .filter(path -> !RepositoryLocks.isDirectoryLockPath(path))
+      .collect(Collectors.toSet());
+    if (lockedPaths.isEmpty()) {
+      return;
+    }
+
+    try (RepositoryService service = serviceFactory.create(repository)) {
+      if (!service.isSupported(Command.MODIFICATIONS)) {
+        return;
+      }
+      Set<String> released = findChangedLocks(service, event.getContext().getChangesetProvider().getChangesets(), lockedPaths);
+      for (String path : released) {
+        service.getLockCommand().unlock(path).execute();
+        index.unlocked(repository.getId(), path);
+      }
+      LOG.debug("released {} locks of {} in {} after push", released.size(), principal, repository);
+    }
+  }
+
+  private Set<String> findChangedLocks(RepositoryService service, Iterable<Changeset> changesets, Set<String> lockedPaths) {
+    Set<String> changedLocks = new HashSet<>();
+    for (Changeset changeset : changesets) {
+      try {
+        for (String path : service.getModificationsCommand().revision(changeset.getId()).getModifications().getEffectedPaths()) {
+          if (lockedPaths.contains(path)) {
+            changedLocks.add(path);
+          }
+        }
+      } catch (IOException e) {
+        LOG.warn("could not read modifications of changeset {} in {}", changeset.getId(), service.getRepository(), e);
+      }
+      if (changedLocks.size() == lockedPaths.size()) {
+        break;
+      }
+    }
+    return changedLocks;
+  }
+}
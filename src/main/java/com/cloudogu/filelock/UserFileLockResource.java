@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import de.otto.edison.hal.Embedded;
+import de.otto.edison.hal.Links;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.apache.shiro.SecurityUtils;
+import sonia.scm.api.v2.resources.ErrorDto;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.RepositoryPermissions;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.web.VndMediaType;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.UriInfo;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static de.otto.edison.hal.Link.link;
+
+@Path("v2/file-lock")
+public class UserFileLockResource {
+
+  private final UserFileLocks userFileLocks;
+  private final RepositoryManager repositoryManager;
+  private final FileLockMapper mapper;
+
+  @Inject
+  public UserFileLockResource(UserFileLocks userFileLocks, RepositoryManager repositoryManager, FileLockMapper mapper) {
+    this.userFileLocks = userFileLocks;
+    this.repositoryManager = repositoryManager;
+    this.mapper = mapper;
+  }
+
+  @GET
+  @Path("me")
+  @Produces(FileLockResource.MEDIA_TYPE)
+  @Operation(
+    summary = "Get locks of current user",
+    description = "Returns the locks of the current user in all repositories, grouped by repository. The flag 'complete' is false, as long as the locks of some repositories have not been loaded yet.",
+    tags = "File Lock",
+    operationId = "file_lock_get_own"
+  )
+  @ApiResponse(responseCode = "200", description = "success")
+  @ApiResponse(responseCode = "401", description = "not authenticated / invalid credentials")
+  @ApiResponse(
+    responseCode = "500",
+    description = "internal server error",
+    content = @Content(
+      mediaType = VndMediaType.ERROR_TYPE,
+      schema = @Schema(implementation = ErrorDto.class)
+    )
+  )
+  public UserFileLocksDto getOwnLocks(@Context UriInfo uriInfo) {
+    String userId = SecurityUtils.getSubject().getPrincipal().toString();
+    Map<String, List<FileLock>> locksByRepository = new LinkedHashMap<>();
+    userFileLocks.get(userId).forEach(
+      lock -> locksByRepository.computeIfAbsent(lock.getRepositoryId(), id -> new ArrayList<>()).add(lock.getFileLock())
+    );
+
+    RestApiLinks restApiLinks = new RestApiLinks(uriInfo);
+    List<RepositoryFileLocksDto> repositories = locksByRepository.entrySet().stream()
+      .map(entry -> createRepositoryDto(restApiLinks, entry.getKey(), entry.getValue()))
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+
+    // while the locks are loaded after startup, the client is told that locks may be missing
+    return new UserFileLocksDto(
+      Links.linkingTo().self(restApiLinks.userFileLock().getOwnLocks().asString()).build(),
+      Embedded.embeddedBuilder().with("repositories", repositories).build(),
+      userFileLocks.isComplete()
+    );
+  }
+
+  private RepositoryFileLocksDto createRepositoryDto(RestApiLinks restApiLinks, String repositoryId, List<FileLock> fileLocks) {
+    Repository repository = repositoryManager.get(repositoryId);
+    if (repository == null || !RepositoryPermissions.push(repository).isPermitted()) {
+      return null;
+    }
+    Links links = Links.linkingTo()
+      .single(link("fileLocks", restApiLinks.fileLock().getAll(repository.getNamespace(), repository.getName()).asString()))
+      .build();
+    Embedded embedded = Embedded.embeddedBuilder().with("fileLocks", mapper.mapAll(repository, fileLocks)).build();
+    return new RepositoryFileLocksDto(links, embedded, repository.getNamespace(), repository.getName());
+  }
+}
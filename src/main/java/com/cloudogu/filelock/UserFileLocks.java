@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import sonia.scm.repository.api.FileLock;
+
+import jakarta.inject.Singleton;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Locks of all repositories grouped by the user who holds them. The locks are maintained
+ * by the {@link FileLockIndex} with every change, so they never have to be collected from
+ * the single repositories. Until the {@link FileLockIndexInitializer} has loaded every
+ * repository, the locks of repositories which have not been accessed yet are missing.
+ * Repositories which could not be loaded are tracked until a retry succeeds.
+ */
+@Singleton
+public class UserFileLocks {
+
+  private final ConcurrentMap<String, Map<String, RepositoryFileLock>> users = new ConcurrentHashMap<>();
+  private final Set<String> unloadedRepositories = ConcurrentHashMap.newKeySet();
+  private volatile boolean initialized;
+
+  /**
+   * Returns {@code true}, if the locks of all repositories are known.
+   */
+  public boolean isComplete() {
+    return initialized && unloadedRepositories.isEmpty();
+  }
+
+  void initialized(Collection<String> failedRepositoryIds) {
+    unloadedRepositories.addAll(failedRepositoryIds);
+    initialized = true;
+  }
+
+  void loaded(String repositoryId) {
+    unloadedRepositories.remove(repositoryId);
+  }
+
+  public List<RepositoryFileLock> get(String userId) {
+    Map<String, RepositoryFileLock> locks = users.get(userId);
+    return locks == null ? List.of() : List.copyOf(locks.values());
+  }
+
+  void added(String repositoryId, FileLock fileLock) {
+    users.compute(fileLock.getUserId(), (id, locks) -> {
+      Map<String, RepositoryFileLock> current = locks == null ? new ConcurrentHashMap<>() : locks;
+      current.put(key(repositoryId, fileLock), new RepositoryFileLock(repositoryId, fileLock));
+      return current;
+    });
+  }
+
+  void removed(String repositoryId, FileLock fileLock) {
+    users.computeIfPresent(fileLock.getUserId(), (id, locks) -> {
+      locks.remove(key(repositoryId, fileLock));
+      return locks.isEmpty() ? null : locks;
+    });
+  }
+
+  private String key(String repositoryId, FileLock fileLock) {
+    return repositoryId + ":" + fileLock.getPath();
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class RepositoryFileLock {
+    private final String repositoryId;
+    private final FileLock fileLock;
+  }
+}
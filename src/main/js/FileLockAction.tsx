@@ -39,32 +39,35 @@ type ModalProps = {
   fileLock: FileLock;
   unlock: () => void;
   setShowModal: (show: boolean) => void;
+  directory?: boolean;
 };
 
-const UnlockModal: FC<ModalProps> = ({ fileLock, setShowModal, unlock }) => {
+const UnlockModal: FC<ModalProps> = ({ fileLock, setShowModal, unlock, directory }) => {
   const [t] = useTranslation("plugins");
   const initialFocusRef = useRef<HTMLButtonElement>(null);
+  const modal = directory ? "unlockDirectoryModal" : "unlockModal";
+  const options = { username: fileLock.username, path: fileLock.path };
 
   return (
     <Modal
       active={true}
       closeFunction={() => setShowModal(false)}
       headColor="warning"
-      title={t("scm-file-lock-plugin.unlockModal.title", { username: fileLock.username })}
-      body={t("scm-file-lock-plugin.unlockModal.description", { username: fileLock.username })}
+      title={t(`scm-file-lock-plugin.${modal}.title`, options)}
+      body={t(`scm-file-lock-plugin.${modal}.description`, options)}
       initialFocusRef={initialFocusRef}
       footer={
         <ButtonGroup>
           <Button
             color="warning"
-            label={t("scm-file-lock-plugin.unlockModal.unlockButton")}
+            label={t(`scm-file-lock-plugin.${modal}.unlockButton`)}
             action={() => {
               unlock();
               setShowModal(false);
             }}
             ref={initialFocusRef}
           />
-          <Button label={t("scm-file-lock-plugin.unlockModal.cancelButton")} action={() => setShowModal(false)} />
+          <Button label={t(`scm-file-lock-plugin.${modal}.cancelButton`)} action={() => setShowModal(false)} />
         </ButtonGroup>
       }
     />
@@ -73,8 +76,9 @@ const UnlockModal: FC<ModalProps> = ({ fileLock, setShowModal, unlock }) => {
 
 const FileLockAction: FC<Props> = ({ repository, file, type }) => {
   const [t] = useTranslation("plugins");
-  const { isLoading, lock, unlock } = useFileLock(repository, file);
+  const { isLoading, lock, unlock, unlockDirectory } = useFileLock(repository, file);
   const fileLock: FileLock = file._embedded?.fileLock;
+  const lockedFiles: number = file._embedded?.lockedFiles?.count || 0;
   const formatter = useDateFormatter({ date: fileLock?.timestamp });
   const [showUnlockModal, setShowUnlockModal] = useState(false);
 
@@ -95,12 +99,22 @@ const FileLockAction: FC<Props> = ({ repository, file, type }) => {
   if (!fileLock && lock) {
     return (
       <Tooltip
-        message={t("scm-file-lock-plugin.unlockIcon.tooltip")}
+        message={
+          lockedFiles > 0
+            ? t("scm-file-lock-plugin.unlockIcon.lockedFiles", { count: lockedFiles })
+            : t("scm-file-lock-plugin.unlockIcon.tooltip")
+        }
         location="top"
         className={type === "BUTTON" ? "pr-2" : ""}
       >
         {type === "ICON" ? (
-          <DarkHoverIcon name="lock-open" color="success" onClick={lock} tabIndex={0} onEnter={lock} />
+          <DarkHoverIcon
+            name="lock-open"
+            color={lockedFiles > 0 ? "warning" : "success"}
+            onClick={lock}
+            tabIndex={0}
+            onEnter={lock}
+          />
         ) : (
           <Button icon="lock-open" loading={isLoading} action={lock} />
         )}
@@ -134,6 +148,39 @@ const FileLockAction: FC<Props> = ({ repository, file, type }) => {
         {showUnlockModal ? <UnlockModal fileLock={fileLock} unlock={unlock} setShowModal={setShowUnlockModal} /> : null}
       </Tooltip>
     );
+  } else if (unlockDirectory) {
+    // releasing the lock of a directory affects all of its files, so it is always confirmed
+    return (
+      <Tooltip
+        message={t("scm-file-lock-plugin.lockIcon.tooltip.directory", {
+          path: fileLock.path,
+          userId: fileLock.owned ? t("scm-file-lock-plugin.lockIcon.me") : fileLock.username,
+          timestamp: formatter?.formatDistance()
+        })}
+        location="top"
+        className={type === "BUTTON" ? "pr-2" : ""}
+      >
+        {type === "ICON" ? (
+          <DarkHoverIcon
+            name="lock"
+            color={resolveLockColor()}
+            onClick={() => setShowUnlockModal(true)}
+            tabIndex={0}
+            onEnter={() => setShowUnlockModal(true)}
+          />
+        ) : (
+          <Button
+            icon="lock"
+            color={resolveLockColor()}
+            loading={isLoading}
+            action={() => setShowUnlockModal(true)}
+          />
+        )}
+        {showUnlockModal ? (
+          <UnlockModal fileLock={fileLock} unlock={unlockDirectory} setShowModal={setShowUnlockModal} directory />
+        ) : null}
+      </Tooltip>
+    );
   }
   return null;
 };
@@ -18,7 +18,7 @@ import React, { FC, useRef, useState } from "react";
 import { File, Link, Repository } from "@scm-manager/ui-types";
 import { Button, ButtonGroup, Icon, Modal, Tooltip } from "@scm-manager/ui-components";
 import { useTranslation } from "react-i18next";
-import { useFileLock } from "./useFileLock";
+import { useFileLock, useLockAndDownload } from "./useFileLock";
 import styled from "styled-components";
 
 type Props = {
@@ -28,7 +28,7 @@ type Props = {
 };
 
 type ModalProps = {
-  lock: () => void;
+  lockAndDownload: () => void;
   onClose: () => void;
   downloadFile: () => void;
 };
@@ -39,7 +39,7 @@ export const DarkHoverIcon = styled(Icon)`
   }
 `;
 
-const FileLockDownloadModal: FC<ModalProps> = ({ onClose, lock, downloadFile }) => {
+const FileLockDownloadModal: FC<ModalProps> = ({ onClose, lockAndDownload, downloadFile }) => {
   const [t] = useTranslation("plugins");
   const initialFocusRef = useRef<HTMLButtonElement>(null);
 
@@ -56,8 +56,7 @@ const FileLockDownloadModal: FC<ModalProps> = ({ onClose, lock, downloadFile })
             label={t("scm-file-lock-plugin.downloadModal.lockDownloadButton")}
             color="warning"
             action={() => {
-              lock();
-              downloadFile();
+              lockAndDownload();
               onClose();
             }}
             ref={initialFocusRef}
@@ -77,7 +76,8 @@ const FileLockDownloadModal: FC<ModalProps> = ({ onClose, lock, downloadFile })
 
 const FileLockDownloadAction: FC<Props> = ({ repository, file, type }) => {
   const [t] = useTranslation("plugins");
-  const { lock, unlock } = useFileLock(repository, file);
+  const { lock, unlock, unlockDirectory } = useFileLock(repository, file);
+  const { lockAndDownload } = useLockAndDownload(repository, file);
   const [showModal, setShowModal] = useState(false);
 
   const downloadFile = (filePath: string) => {
@@ -112,7 +112,13 @@ const FileLockDownloadAction: FC<Props> = ({ repository, file, type }) => {
         {showModal && (
           <FileLockDownloadModal
             onClose={() => setShowModal(false)}
-            lock={lock}
+            lockAndDownload={
+              lockAndDownload ||
+              (() => {
+                lock();
+                downloadFile((file._links.self as Link).href);
+              })
+            }
             downloadFile={() => downloadFile((file._links.self as Link).href)}
           />
         )}
@@ -120,7 +126,7 @@ const FileLockDownloadAction: FC<Props> = ({ repository, file, type }) => {
     );
   }
 
-  if (unlock) {
+  if (unlock || unlockDirectory) {
     if (file._embedded?.fileLock?.owned) {
       return (
         <>
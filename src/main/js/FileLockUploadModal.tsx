@@ -26,7 +26,7 @@ import {
   Table,
   TextColumn
 } from "@scm-manager/ui-components";
-import { useFileLocks, useUnlockFiles } from "./useFileLock";
+import { useFileLockConflicts, useUnlockFiles } from "./useFileLock";
 import { FileLock } from "./FileLockAction";
 import { useTranslation } from "react-i18next";
 
@@ -38,7 +38,15 @@ type Props = {
 };
 
 const FileLockUploadModal: FC<Props> = ({ repository, files, path, shouldValidate }) => {
-  const { data, error } = useFileLocks(repository);
+  const resolveFilePath = (file: File) => {
+    if (path) {
+      return `${path}/${file.path}`;
+    }
+    return file.path;
+  };
+
+  const paths = files.map(resolveFilePath);
+  const { data, error } = useFileLockConflicts(repository, paths, shouldValidate);
   const { unlockFiles, error: unlockError } = useUnlockFiles(repository);
   const [showModal, setShowModal] = useState(false);
   const [t] = useTranslation("plugins");
@@ -51,39 +59,17 @@ const FileLockUploadModal: FC<Props> = ({ repository, files, path, shouldValidat
     }
   }, [files, data, shouldValidate]);
 
-  const resolveFilePath = (file: File) => {
-    if (path) {
-      return `${path}/${file.path}`;
-    }
-    return file.path;
-  };
-
   const validate = () => {
-    let valid = true;
-    for (let file of files) {
-      if (
-        (data?._embedded?.fileLocks as FileLock[]).some(
-          lockedFile => lockedFile.path === resolveFilePath(file) && !lockedFile.owned
-        )
-      ) {
-        valid = false;
-      }
-    }
-    return valid;
+    return !((data?._embedded?.fileLocks as FileLock[]) || []).some(lockedFile => !lockedFile.owned);
   };
 
   const getConflictingLocks = () => {
-    const conflictingLocks: FileLock[] = [];
-    for (let file of files) {
-      if (data?._embedded?.fileLocks) {
-        for (let lock of data._embedded.fileLocks as FileLock[]) {
-          if (lock.path === resolveFilePath(file)) {
-            conflictingLocks.push({ ...lock, filename: file.name });
-          }
-        }
-      }
-    }
-    return conflictingLocks;
+    const filenames: { [path: string]: string } = {};
+    files.forEach(file => (filenames[resolveFilePath(file)] = file.name));
+    return ((data?._embedded?.fileLocks as FileLock[]) || []).map(lock => ({
+      ...lock,
+      filename: filenames[lock.path] || lock.path
+    }));
   };
 
   const unlockConflictingFiles = () => {
@@ -21,6 +21,9 @@ import { HalRepresentation } from "@scm-manager/ui-types";
 
 type FileLockConfig = HalRepresentation & {
   enabled: boolean;
+  lockablePatterns: string[];
+  lockTtlHours: number;
+  unlockOnPush: boolean;
 };
 
 type Props = {
@@ -35,6 +38,9 @@ const RepoConfig: FC<Props> = ({ link }) => {
       <Subtitle>{t("scm-file-lock-plugin.config.subtitle")}</Subtitle>
       <ConfigurationForm<FileLockConfig> link={link} translationPath={["plugins", "scm-file-lock-plugin.config"]}>
         <Form.Checkbox name="enabled" />
+        <Form.ChipInput name="lockablePatterns" />
+        <Form.Input name="lockTtlHours" type="number" rules={{ min: 0 }} />
+        <Form.Checkbox name="unlockOnPush" />
       </ConfigurationForm>
     </>
   );
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+import { File } from "@scm-manager/ui-types";
+import { FileLockChange, patchSources } from "./useFileLock";
+
+const file = (path: string, directory = false, links = {}): File =>
+  (({
+    name: path.substring(path.lastIndexOf("/") + 1),
+    path,
+    directory,
+    revision: "42",
+    _links: links,
+    _embedded: { children: [] }
+  } as unknown) as File);
+
+const listing = (...children: File[]): File => ({ ...file("", true), _embedded: { children } });
+
+const change: FileLockChange = { path: "", username: "Tricia McMillan", owned: true };
+
+describe("patchSources", () => {
+  it("should lock listed file and count it for the directory above", () => {
+    const sources = listing(
+      file("assets", true, { lock: { href: "/lock/assets%2F" } }),
+      file("README.md", false, { lock: { href: "/lock/README.md" } })
+    );
+
+    const patched = patchSources(sources, "assets/ship.obj", { ...change, path: "assets/ship.obj" });
+    const children = patched?._embedded?.children as File[];
+
+    expect(children[0]._embedded?.lockedFiles).toEqual({ count: 1 });
+    expect(children[1]._links.unlock).toBeUndefined();
+  });
+
+  it("should move the lock link of a locked file to unlock", () => {
+    const sources = listing(file("README.md", false, { lock: { href: "/lock/README.md" } }));
+
+    const patched = patchSources(sources, "README.md", { ...change, path: "README.md" });
+    const readme = (patched?._embedded?.children as File[])[0];
+
+    expect(readme._links.unlock).toEqual({ href: "/lock/README.md" });
+    expect(readme._links.lock).toBeUndefined();
+    expect(readme._embedded?.fileLock.path).toBe("README.md");
+  });
+
+  it("should not count a directory lock as locked file of the directory", () => {
+    const sources = listing(file("assets", true, { lock: { href: "/lock/assets%2F" } }));
+
+    const patched = patchSources(sources, "assets/", { ...change, path: "assets/" });
+
+    expect(patched).toBe(sources);
+  });
+
+  it("should not patch the files inside a locked directory", () => {
+    const sources = { ...file("assets", true), _embedded: { children: [file("assets/ship.obj", false, { lock: { href: "/lock/ship" } })] } };
+
+    const patched = patchSources(sources, "assets/", { ...change, path: "assets/" });
+
+    expect(patched).toBe(sources);
+  });
+});
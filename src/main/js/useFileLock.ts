@@ -16,28 +16,191 @@
 
 import { apiClient } from "@scm-manager/ui-components";
 import { File, HalRepresentation, Link, Repository } from "@scm-manager/ui-types";
-import { useMutation, useQueryClient, useQuery } from "react-query";
+import { useEffect } from "react";
+import { QueryClient, useMutation, useQueryClient, useQuery } from "react-query";
 import { FileLock } from "./FileLockAction";
 
+export type FileLockChange = {
+  path: string;
+  username?: string;
+  timestamp?: Date;
+  owned: boolean;
+};
+
+type Subscription = {
+  source: EventSource;
+  count: number;
+};
+
+// all files of a repository share one connection
+const subscriptions: { [href: string]: Subscription } = {};
+
+const patchFile = (file: File, change: FileLockChange | null, path: string): File => {
+  const link = file._links.lock || file._links.unlock;
+  if (!link) {
+    return file;
+  }
+  const links = { ...file._links };
+  delete links.lock;
+  delete links.unlock;
+  const embedded = { ...file._embedded };
+  delete embedded.fileLock;
+  if (change) {
+    return {
+      ...file,
+      _links: { ...links, unlock: link },
+      _embedded: { ...embedded, fileLock: { ...change, path, _links: { unlock: link } } }
+    };
+  }
+  return { ...file, _links: { ...links, lock: link }, _embedded: embedded };
+};
+
+const isAbove = (file: File, path: string) => file.directory && path.startsWith(file.path + "/");
+
+const patchLockedFiles = (directory: File, delta: number): File => {
+  const count = Math.max(0, (directory._embedded?.lockedFiles?.count || 0) + delta);
+  const embedded = { ...directory._embedded };
+  delete embedded.lockedFiles;
+  return { ...directory, _embedded: count > 0 ? { ...embedded, lockedFiles: { count } } : embedded };
+};
+
+export const isDirectoryLockPath = (path: string) => path.endsWith("/");
+
+// only locks of single files are patched, directory locks change the links of all files below
+export const patchSources = (data: File | undefined, path: string, change: FileLockChange | null) => {
+  if (!data || isDirectoryLockPath(path)) {
+    return data;
+  }
+  if (data.path === path) {
+    return patchFile(data, change, path);
+  }
+  const children = data._embedded?.children as File[] | undefined;
+  if (children?.some(child => child.path === path || isAbove(child, path))) {
+    return {
+      ...data,
+      _embedded: {
+        ...data._embedded,
+        children: children.map(child => {
+          if (child.path === path) {
+            return patchFile(child, change, path);
+          }
+          return isAbove(child, path) ? patchLockedFiles(child, change ? 1 : -1) : child;
+        })
+      }
+    };
+  }
+  return data;
+};
+
+const openEvents = (href: string, namespace: string, name: string, queryClient: QueryClient) => {
+  const source = new EventSource(href, { withCredentials: true });
+  const update = (path: string, change: FileLockChange | null) => {
+    if (isDirectoryLockPath(path)) {
+      queryClient.invalidateQueries(["repository", namespace, name, "sources"]);
+    } else {
+      queryClient.setQueriesData<File | undefined>(["repository", namespace, name, "sources"], data =>
+        patchSources(data, path, change)
+      );
+    }
+    queryClient.invalidateQueries(["repository", namespace, name, "file-lock-conflicts"]);
+  };
+  source.addEventListener("locked", event => {
+    const change: FileLockChange = JSON.parse((event as MessageEvent).data);
+    update(change.path, change);
+  });
+  source.addEventListener("unlocked", event => {
+    const change: FileLockChange = JSON.parse((event as MessageEvent).data);
+    update(change.path, null);
+  });
+  return source;
+};
+
+const isConnected = (repository: Repository) => {
+  const link = repository._links.fileLockEvents as Link | undefined;
+  const subscription = link && subscriptions[link.href];
+  return !!subscription && subscription.source.readyState === EventSource.OPEN;
+};
+
+export const useFileLockEvents = (repository: Repository) => {
+  const queryClient = useQueryClient();
+  const { namespace, name } = repository;
+  const href = (repository._links.fileLockEvents as Link | undefined)?.href;
+  useEffect(() => {
+    if (!href || typeof EventSource === "undefined") {
+      return;
+    }
+    if (!subscriptions[href]) {
+      subscriptions[href] = { source: openEvents(href, namespace, name, queryClient), count: 0 };
+    }
+    subscriptions[href].count++;
+    return () => {
+      const subscription = subscriptions[href];
+      subscription.count--;
+      if (subscription.count === 0) {
+        subscription.source.close();
+        delete subscriptions[href];
+      }
+    };
+  }, [href, namespace, name, queryClient]);
+};
+
+type LockOperation = "lock" | "unlock" | "unlockDirectory";
+
 export const useFileLock = (repository: Repository, file: File) => {
   const queryClient = useQueryClient();
-  const { mutate, isLoading, error } = useMutation<unknown, Error, boolean>(
-    (lock: boolean) => {
-      if (lock) {
+  useFileLockEvents(repository);
+  const { mutate, isLoading, error } = useMutation<unknown, Error, LockOperation>(
+    (action: LockOperation) => {
+      if (action === "lock") {
         return apiClient.post((file._links.lock as Link).href);
       } else {
-        return apiClient.delete((file._links.unlock as Link).href);
+        return apiClient.delete((file._links[action] as Link).href);
       }
     },
     {
       onSuccess: () => {
-        return queryClient.invalidateQueries(["repository", repository.namespace, repository.name]);
+        // the sources are patched by the lock events, if we are connected
+        if (!isConnected(repository)) {
+          return queryClient.invalidateQueries(["repository", repository.namespace, repository.name, "sources"]);
+        }
       }
     }
   );
   return {
-    lock: file._links.lock ? () => mutate(true) : undefined,
-    unlock: file._links.unlock ? () => mutate(false) : undefined,
+    lock: file._links.lock ? () => mutate("lock") : undefined,
+    unlock: file._links.unlock ? () => mutate("unlock") : undefined,
+    // a file in a locked directory can only release the lock of the whole directory
+    unlockDirectory: file._links.unlockDirectory ? () => mutate("unlockDirectory") : undefined,
+    isLoading,
+    error
+  };
+};
+
+const saveFile = (blob: Blob, filename: string) => {
+  const url = URL.createObjectURL(blob);
+  const link = document.createElement("a");
+  link.href = url;
+  link.download = filename;
+  link.click();
+  setTimeout(() => URL.revokeObjectURL(url));
+};
+
+// locks the file and downloads its content with a single request, so the download never races the lock
+export const useLockAndDownload = (repository: Repository, file: File) => {
+  const queryClient = useQueryClient();
+  const { mutate, isLoading, error } = useMutation<Blob, Error>(
+    () => apiClient.post((file._links.lockAndDownload as Link).href).then(response => response.blob()),
+    {
+      onSuccess: blob => {
+        saveFile(blob, file.name);
+        if (!isConnected(repository)) {
+          return queryClient.invalidateQueries(["repository", repository.namespace, repository.name, "sources"]);
+        }
+      }
+    }
+  );
+  return {
+    lockAndDownload: file._links.lockAndDownload ? () => mutate() : undefined,
     isLoading,
     error
   };
@@ -47,16 +210,14 @@ export const useUnlockFiles = (repository: Repository) => {
   const queryClient = useQueryClient();
   const { mutate, isLoading, error } = useMutation<unknown, Error, FileLock[]>(
     ["repository", repository.namespace, repository.name, "file-locks"],
-    (locks: FileLock[]) => {
-      const promises = [];
-      for (let lock of locks) {
-        promises.push(apiClient.delete((lock._links.unlock as Link).href));
-      }
-      return Promise.all(promises);
-    },
+    (locks: FileLock[]) =>
+      apiClient.post((repository._links.unlockFiles as Link).href, { paths: locks.map(lock => lock.path) }),
     {
       onSuccess: () => {
-        return queryClient.invalidateQueries(["repository", repository.namespace, repository.name]);
+        queryClient.invalidateQueries(["repository", repository.namespace, repository.name, "file-lock-conflicts"]);
+        if (!isConnected(repository)) {
+          return queryClient.invalidateQueries(["repository", repository.namespace, repository.name, "sources"]);
+        }
       }
     }
   );
@@ -67,10 +228,11 @@ export const useUnlockFiles = (repository: Repository) => {
   };
 };
 
-export const useFileLocks = (repository: Repository) => {
+export const useFileLockConflicts = (repository: Repository, paths: string[], enabled: boolean) => {
   const { error, isLoading, data } = useQuery<HalRepresentation, Error>(
-    ["repository", repository.namespace, repository.name, "file-locks"],
-    () => apiClient.get((repository._links.fileLocks as Link).href).then(res => res.json())
+    ["repository", repository.namespace, repository.name, "file-lock-conflicts", paths],
+    () => apiClient.post((repository._links.fileLockConflicts as Link).href, { paths }).then(res => res.json()),
+    { enabled: enabled && paths.length > 0 }
   );
 
   return {
@@ -16,6 +16,8 @@
 
 package com.cloudogu.filelock;
 
+import com.google.inject.util.Providers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.github.sdorra.jse.ShiroExtension;
 import org.github.sdorra.jse.SubjectAware;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,12 +25,12 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.api.v2.resources.HalAppender;
 import sonia.scm.api.v2.resources.HalEnricherContext;
 import sonia.scm.api.v2.resources.ScmPathInfoStore;
+import sonia.scm.repository.BrowserResult;
 import sonia.scm.repository.FileObject;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryManager;
@@ -41,13 +43,16 @@ import sonia.scm.repository.api.RepositoryServiceFactory;
 import jakarta.inject.Provider;
 import java.net.URI;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -74,11 +79,12 @@ class FileEnricherTest {
   @Mock
   private FileLockMapper mapper;
 
-  @InjectMocks
   private FileEnricher enricher;
 
   @BeforeEach
   void init() {
+    FileLockMetrics metrics = new FileLockMetrics(new SimpleMeterRegistry());
+    enricher = new FileEnricher(new FileLockIndex(serviceFactory, metrics, new UserFileLocks(), new LockStatistics()), Providers.of(new FileLockRequestContext(scmPathInfoStoreProvider)), mapper, repositoryManager, configStore, metrics);
     when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
     ScmPathInfoStore scmPathInfoStore = new ScmPathInfoStore();
     scmPathInfoStore.set(() -> URI.create("scm/api/"));
@@ -96,6 +102,7 @@ class FileEnricherTest {
     @Test
     void shouldNotEnrichIdLockCommandNotSupported() {
       FileObject fileObject = mock(FileObject.class);
+      when(fileObject.getPath()).thenReturn("myfile");
 
       when(serviceFactory.create(repository)).thenReturn(service);
       when(service.isSupported(Command.FILE_LOCK)).thenReturn(false);
@@ -118,14 +125,14 @@ class FileEnricherTest {
 
       @Test
       void shouldEnrichWithPushPermission() {
-        FileLock fileLock = new FileLock("src/test.md", "", "trillian", Instant.ofEpochMilli(10000));
+        FileLock fileLock = new FileLock("myfile", "", "trillian", Instant.ofEpochMilli(10000));
         FileLockDto dto = new FileLockDto("trillian", Instant.ofEpochMilli(10000), "myfile", false);
         FileObject fileObject = mock(FileObject.class);
         String filepath = "myfile";
 
         when(fileObject.getPath()).thenReturn(filepath);
-        when(lockCommandBuilder.status(filepath)).thenReturn(Optional.of(fileLock));
-        when(mapper.map(repository, fileLock)).thenReturn(dto);
+        when(lockCommandBuilder.getAll()).thenReturn(List.of(fileLock));
+        when(mapper.map(eq(fileLock), any(FileLockMappingContext.class))).thenReturn(dto);
 
         enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), fileObject), appender);
 
@@ -139,13 +146,132 @@ class FileEnricherTest {
         String filepath = "src/myfile";
 
         when(fileObject.getPath()).thenReturn(filepath);
-        when(lockCommandBuilder.status(filepath)).thenReturn(Optional.empty());
+        when(lockCommandBuilder.getAll()).thenReturn(List.of());
 
         enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), fileObject), appender);
 
         verify(appender, never()).appendEmbedded(anyString(), any(FileLockDto.class));
         verify(appender).appendLink("lock", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/src%2Fmyfile");
+        verify(appender).appendLink("lockAndDownload", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/src%2Fmyfile");
       }
+
+      @Test
+      void shouldDownloadBrowsedRevision() {
+        FileObject fileObject = mock(FileObject.class);
+
+        when(fileObject.getPath()).thenReturn("src/myfile");
+        when(lockCommandBuilder.getAll()).thenReturn(List.of());
+
+        BrowserResult browserResult = new BrowserResult("abc42", fileObject);
+        enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), browserResult, fileObject), appender);
+
+        verify(appender).appendLink("lockAndDownload", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/src%2Fmyfile?revision=abc42");
+      }
+
+      @Test
+      void shouldReadLocksOnlyOnce() {
+        FileObject firstFile = mock(FileObject.class);
+        FileObject secondFile = mock(FileObject.class);
+
+        when(firstFile.getPath()).thenReturn("src/a.md");
+        when(secondFile.getPath()).thenReturn("src/b.md");
+        when(lockCommandBuilder.getAll()).thenReturn(List.of(new FileLock("src/b.md", "", "trillian", Instant.ofEpochMilli(10000))));
+
+        enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), firstFile), appender);
+        enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), secondFile), appender);
+
+        verify(serviceFactory, times(1)).create(repository);
+        verify(lockCommandBuilder, times(1)).getAll();
+        verify(scmPathInfoStoreProvider, times(1)).get();
+        verify(appender).appendLink("lock", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/src%2Fa.md");
+        verify(appender).appendLink("unlock", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/src%2Fb.md");
+      }
+
+      @Test
+      void shouldEnrichFileWithLockOfDirectoryAbove() {
+        FileLock directoryLock = new FileLock("assets/", "", "dent", Instant.ofEpochMilli(10000));
+        FileLockDto dto = new FileLockDto("dent", Instant.ofEpochMilli(10000), "assets/", false);
+        FileObject fileObject = mock(FileObject.class);
+
+        when(fileObject.getPath()).thenReturn("assets/textures/wall.png");
+        when(lockCommandBuilder.getAll()).thenReturn(List.of(directoryLock));
+        when(mapper.map(eq(directoryLock), any(FileLockMappingContext.class))).thenReturn(dto);
+
+        enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), fileObject), appender);
+
+        verify(appender).appendEmbedded("fileLock", dto);
+        verify(appender).appendLink("unlockDirectory", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/assets%2F");
+        verify(appender, never()).appendLink(eq("unlock"), anyString());
+      }
+
+      @Test
+      void shouldEnrichDirectoryWithDirectoryLockLink() {
+        FileObject fileObject = mock(FileObject.class);
+
+        when(fileObject.getPath()).thenReturn("assets");
+        when(fileObject.isDirectory()).thenReturn(true);
+        when(lockCommandBuilder.getAll()).thenReturn(List.of());
+
+        enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), fileObject), appender);
+
+        verify(appender).appendLink("lock", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/assets%2F");
+        verify(appender, never()).appendLink(eq("lockAndDownload"), anyString());
+      }
+
+      @Test
+      void shouldEnrichDirectoryWithCountOfLockedFiles() {
+        FileObject fileObject = mock(FileObject.class);
+
+        when(fileObject.getPath()).thenReturn("assets");
+        when(fileObject.isDirectory()).thenReturn(true);
+        when(lockCommandBuilder.getAll()).thenReturn(List.of(
+          new FileLock("assets/textures/wall.png", "", "dent", Instant.ofEpochMilli(10000)),
+          new FileLock("assets/ship.obj", "", "trillian", Instant.ofEpochMilli(10000)),
+          new FileLock("src/main.c", "", "trillian", Instant.ofEpochMilli(10000))
+        ));
+
+        enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), fileObject), appender);
+
+        verify(appender).appendEmbedded(eq("lockedFiles"), argThat((FileLockCountDto dto) -> dto.getCount() == 2));
+        verify(appender).appendLink("lock", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/assets%2F");
+      }
+    }
+  }
+
+  @Nested
+  @SubjectAware(permissions = "repository:push:id-1")
+  class WithLockablePatterns {
+
+    @BeforeEach
+    void mockConfig() {
+      RepositoryConfig repositoryConfig = new RepositoryConfig();
+      repositoryConfig.setLockablePatterns(List.of("**/*.psd"));
+      when(configStore.getConfig(repository)).thenReturn(repositoryConfig);
+    }
+
+    @Test
+    void shouldNotLookupLocksOfFilesNotMatching() {
+      FileObject fileObject = mock(FileObject.class);
+      when(fileObject.getPath()).thenReturn("src/main.c");
+
+      enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), fileObject), appender);
+
+      verify(serviceFactory, never()).create(any(Repository.class));
+      verify(appender, never()).appendLink(anyString(), anyString());
+    }
+
+    @Test
+    void shouldEnrichMatchingFiles() {
+      FileObject fileObject = mock(FileObject.class);
+      when(fileObject.getPath()).thenReturn("assets/logo.psd");
+      when(serviceFactory.create(repository)).thenReturn(service);
+      when(service.isSupported(Command.FILE_LOCK)).thenReturn(true);
+      when(service.getLockCommand()).thenReturn(lockCommandBuilder);
+      when(lockCommandBuilder.getAll()).thenReturn(List.of());
+
+      enricher.enrich(HalEnricherContext.of(repository.getNamespaceAndName(), fileObject), appender);
+
+      verify(appender).appendLink("lock", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/assets%2Flogo.psd");
     }
   }
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.user.DisplayUser;
+import sonia.scm.user.User;
+import sonia.scm.user.UserDisplayManager;
+
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FileLockBroadcasterTest {
+
+  private final FileLock fileLock = new FileLock("src/test.md", "", "trillian", Instant.ofEpochMilli(10000));
+
+  @Mock
+  private UserDisplayManager userDisplayManager;
+  @Mock
+  private Sse sse;
+  @Mock
+  private SseEventSink trilliansSink;
+  @Mock
+  private SseEventSink dentsSink;
+
+  private final OutboundSseEvent.Builder eventBuilder = mock(OutboundSseEvent.Builder.class, RETURNS_SELF);
+
+  private FileLockBroadcaster broadcaster;
+
+  @BeforeEach
+  void init() {
+    broadcaster = new FileLockBroadcaster(userDisplayManager);
+    lenient().when(sse.newEventBuilder()).thenReturn(eventBuilder);
+    lenient().when(eventBuilder.build()).thenReturn(mock(OutboundSseEvent.class));
+    lenient().when(trilliansSink.send(any())).thenReturn(CompletableFuture.completedFuture(null));
+    lenient().when(dentsSink.send(any())).thenReturn(CompletableFuture.completedFuture(null));
+  }
+
+  @Test
+  void shouldIgnoreChangesWithoutSubscribers() {
+    broadcaster.locked("id-1", fileLock);
+
+    verify(sse, never()).newEventBuilder();
+  }
+
+  @Test
+  void shouldSendLockWithOwnerFlagPerSubscriber() {
+    when(userDisplayManager.get("trillian")).thenReturn(Optional.of(DisplayUser.from(new User("trillian", "Tricia McMillan", null))));
+    broadcaster.subscribe("id-1", "trillian", sse, trilliansSink);
+    broadcaster.subscribe("id-1", "dent", sse, dentsSink);
+    broadcaster.subscribe("id-2", "dent", sse, dentsSink);
+
+    broadcaster.locked("id-1", fileLock);
+
+    ArgumentCaptor<FileLockChangeDto> changes = ArgumentCaptor.forClass(FileLockChangeDto.class);
+    verify(eventBuilder, times(2)).name(FileLockBroadcaster.LOCKED);
+    verify(eventBuilder, times(2)).data(eq(FileLockChangeDto.class), changes.capture());
+    assertThat(changes.getAllValues())
+      .extracting(FileLockChangeDto::getUsername)
+      .containsOnly("Tricia McMillan");
+    assertThat(changes.getAllValues())
+      .extracting(FileLockChangeDto::isOwned)
+      .containsExactlyInAnyOrder(true, false);
+    verify(trilliansSink).send(any());
+    verify(dentsSink).send(any());
+  }
+
+  @Test
+  void shouldSendUnlock() {
+    broadcaster.subscribe("id-1", "dent", sse, dentsSink);
+
+    broadcaster.unlocked("id-1", "src/test.md");
+
+    verify(eventBuilder).name(FileLockBroadcaster.UNLOCKED);
+    verify(dentsSink).send(any());
+  }
+
+  @Test
+  void shouldRemoveClosedSubscribers() {
+    broadcaster.subscribe("id-1", "dent", sse, dentsSink);
+    when(dentsSink.isClosed()).thenReturn(true);
+
+    broadcaster.unlocked("id-1", "src/test.md");
+    broadcaster.unlocked("id-1", "src/other.md");
+
+    verify(dentsSink, never()).send(any());
+    verify(dentsSink, times(1)).isClosed();
+  }
+
+  @Test
+  void shouldSendKeepAlive() {
+    broadcaster.subscribe("id-1", "dent", sse, dentsSink);
+    broadcaster.subscribe("id-2", "trillian", sse, trilliansSink);
+
+    broadcaster.keepAlive();
+
+    verify(eventBuilder, times(2)).comment(FileLockBroadcaster.KEEP_ALIVE);
+    verify(dentsSink).send(any());
+    verify(trilliansSink).send(any());
+  }
+
+  @Test
+  void shouldRemoveClosedSubscribersOnKeepAlive() {
+    broadcaster.subscribe("id-1", "dent", sse, dentsSink);
+    when(dentsSink.isClosed()).thenReturn(true);
+
+    broadcaster.keepAlive();
+
+    verify(dentsSink, never()).send(any());
+    assertThat(broadcaster.getSubscriberCount("id-1")).isZero();
+  }
+
+  @Test
+  void shouldRemoveSubscribersWhenKeepAliveFails() {
+    broadcaster.subscribe("id-1", "dent", sse, dentsSink);
+    broadcaster.subscribe("id-1", "trillian", sse, trilliansSink);
+    when(dentsSink.send(any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("gone")));
+
+    broadcaster.keepAlive();
+
+    verify(dentsSink).close();
+    assertThat(broadcaster.getSubscriberCount("id-1")).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRemoveClosedSubscribersOnSubscribe() {
+    broadcaster.subscribe("id-1", "dent", sse, dentsSink);
+    when(dentsSink.isClosed()).thenReturn(true);
+
+    broadcaster.subscribe("id-1", "trillian", sse, trilliansSink);
+
+    assertThat(broadcaster.getSubscriberCount("id-1")).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCloseSubscribersOfRepository() {
+    broadcaster.subscribe("id-1", "dent", sse, dentsSink);
+
+    broadcaster.close("id-1");
+    broadcaster.unlocked("id-1", "src/test.md");
+
+    verify(dentsSink).close();
+    verify(dentsSink, never()).send(any());
+  }
+}
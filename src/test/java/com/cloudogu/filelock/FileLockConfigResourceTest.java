@@ -51,13 +51,15 @@ class FileLockConfigResourceTest {
   private RepositoryConfigStore configStore;
   @Mock
   private RepositoryManager manager;
+  @Mock
+  private LockExpirySweeper sweeper;
 
   private RestDispatcher dispatcher;
   private final JsonMockHttpResponse response = new JsonMockHttpResponse();
 
   @BeforeEach
   void initResource() {
-    FileLockConfigResource resource = new FileLockConfigResource(configStore, manager);
+    FileLockConfigResource resource = new FileLockConfigResource(configStore, manager, sweeper);
 
     dispatcher = new RestDispatcher();
     dispatcher.addSingletonResource(resource);
@@ -83,7 +85,7 @@ class FileLockConfigResourceTest {
   void shouldUpdateConfig() throws URISyntaxException {
     when(manager.get(repository.getNamespaceAndName())).thenReturn(repository);
 
-    byte[] contentJson = ("{\"enabled\" : \"false\"}").getBytes();
+    byte[] contentJson = ("{\"enabled\" : \"false\", \"lockTtlHours\" : 24}").getBytes();
 
     MockHttpRequest request = MockHttpRequest.put(String.format("/v2/file-lock/%s/config", repository.getNamespaceAndName()))
       .contentType(FileLockConfigResource.MEDIA_TYPE)
@@ -94,7 +96,9 @@ class FileLockConfigResourceTest {
     assertThat(response.getStatus()).isEqualTo(204);
     verify(configStore).updateConfig(eq(repository), argThat(config -> {
       assertThat(config.isEnabled()).isFalse();
+      assertThat(config.getLockTtlHours()).isEqualTo(24);
       return true;
     }));
+    verify(sweeper).reschedule(repository);
   }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.web.security.AdministrationContext;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FileLockIndexInitializerTest {
+
+  private final Repository heartOfGold = new Repository("id-1", "git", "hitchhiker", "HeartOfGold");
+  private final Repository puzzle = new Repository("id-2", "git", "hitchhiker", "puzzle42");
+
+  @Mock
+  private AdministrationContext administrationContext;
+  @Mock
+  private RepositoryManager repositoryManager;
+  @Mock
+  private FileLockIndex index;
+
+  private final UserFileLocks userFileLocks = new UserFileLocks();
+  private FileLockIndexInitializer initializer;
+
+  @BeforeEach
+  void init() {
+    initializer = new FileLockIndexInitializer(administrationContext, repositoryManager, index, userFileLocks);
+    when(repositoryManager.getAll()).thenReturn(List.of(heartOfGold, puzzle));
+  }
+
+  @Test
+  void shouldCompleteAfterLoadingAllRepositories() {
+    initializer.loadAll();
+
+    verify(index).get(heartOfGold);
+    verify(index).get(puzzle);
+    assertThat(userFileLocks.isComplete()).isTrue();
+  }
+
+  @Test
+  void shouldRetryOnlyFailedRepositories() {
+    when(index.get(puzzle))
+      .thenThrow(new IllegalStateException("store not available"))
+      .thenReturn(Optional.empty());
+    when(repositoryManager.get("id-2")).thenReturn(puzzle);
+
+    initializer.loadAll();
+
+    assertThat(userFileLocks.isComplete()).isFalse();
+
+    initializer.retryFailed();
+
+    verify(index, times(1)).get(heartOfGold);
+    verify(index, times(2)).get(puzzle);
+    verify(repositoryManager, times(1)).getAll();
+    assertThat(userFileLocks.isComplete()).isTrue();
+  }
+
+  @Test
+  void shouldForgetFailedRepositoriesWhichHaveBeenDeleted() {
+    when(index.get(puzzle)).thenThrow(new IllegalStateException("store not available"));
+
+    initializer.loadAll();
+    initializer.retryFailed();
+
+    verify(index, times(1)).get(puzzle);
+    assertThat(userFileLocks.isComplete()).isTrue();
+  }
+}
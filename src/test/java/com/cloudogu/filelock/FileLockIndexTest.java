@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.Command;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.FileLockCommandBuilder;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FileLockIndexTest {
+
+  private final Repository repository = new Repository("id-1", "git", "hitchhiker", "HeartOfGold");
+  private final FileLock fileLock = new FileLock("src/test.md", "", "trillian", Instant.ofEpochMilli(10000));
+
+  @Mock
+  private RepositoryServiceFactory serviceFactory;
+  @Mock
+  private RepositoryService service;
+  @Mock
+  private FileLockCommandBuilder lockCommandBuilder;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final UserFileLocks userFileLocks = new UserFileLocks();
+  private final LockStatistics statistics = new LockStatistics();
+  private FileLockIndex index;
+
+  @BeforeEach
+  void init() {
+    index = new FileLockIndex(serviceFactory, new FileLockMetrics(meterRegistry), userFileLocks, statistics);
+    when(serviceFactory.create(repository)).thenReturn(service);
+  }
+
+  @Test
+  void shouldBeEmptyIfLockCommandNotSupported() {
+    when(service.isSupported(Command.FILE_LOCK)).thenReturn(false);
+
+    assertThat(index.get(repository)).isEmpty();
+  }
+
+  @Nested
+  class WithLockCommandSupport {
+
+    @BeforeEach
+    void mockLockCommand() {
+      when(service.isSupported(Command.FILE_LOCK)).thenReturn(true);
+      when(service.getLockCommand()).thenReturn(lockCommandBuilder);
+      when(lockCommandBuilder.getAll()).thenReturn(List.of(fileLock));
+    }
+
+    @Test
+    void shouldLoadLocksOnlyOnce() {
+      assertThat(index.get(repository).orElseThrow().get("src/test.md")).contains(fileLock);
+      assertThat(index.get(repository).orElseThrow().size()).isEqualTo(1);
+
+      verify(lockCommandBuilder, times(1)).getAll();
+    }
+
+    @Test
+    void shouldNotCacheLocksChangedWhileLoading() {
+      FileLock other = new FileLock("src/other.md", "", "dent", Instant.ofEpochMilli(20000));
+      when(lockCommandBuilder.getAll()).thenAnswer(invocation -> {
+        index.locked("id-1", other);
+        return List.of(fileLock);
+      }).thenReturn(List.of(fileLock, other));
+
+      assertThat(index.get(repository).orElseThrow().size()).isEqualTo(1);
+      assertThat(index.get(repository).orElseThrow().size()).isEqualTo(2);
+      assertThat(index.get(repository).orElseThrow().size()).isEqualTo(2);
+
+      verify(lockCommandBuilder, times(2)).getAll();
+    }
+
+    @Test
+    void shouldApplyLockAndUnlock() {
+      index.get(repository);
+      FileLock other = new FileLock("src/other.md", "", "dent", Instant.ofEpochMilli(20000));
+
+      index.locked("id-1", other);
+      index.unlocked("id-1", "src/test.md");
+
+      RepositoryLocks locks = index.get(repository).orElseThrow();
+      assertThat(locks.getAll()).containsExactly(other);
+      verify(lockCommandBuilder, times(1)).getAll();
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+      index.get(repository);
+
+      index.invalidate("id-1");
+      index.get(repository);
+
+      verify(lockCommandBuilder, times(2)).getAll();
+    }
+
+    @Test
+    void shouldMaintainLocksOfUsers() {
+      index.get(repository);
+      FileLock other = new FileLock("src/other.md", "", "dent", Instant.ofEpochMilli(20000));
+      FileLock takenOver = new FileLock("src/test.md", "", "dent", Instant.ofEpochMilli(30000));
+
+      index.locked("id-1", other);
+      index.locked("id-1", takenOver);
+
+      assertThat(userFileLocks.get("trillian")).isEmpty();
+      assertThat(userFileLocks.get("dent"))
+        .extracting(UserFileLocks.RepositoryFileLock::getFileLock)
+        .containsExactlyInAnyOrder(other, takenOver);
+
+      index.unlocked("id-1", "src/other.md");
+      index.invalidate("id-1");
+
+      assertThat(userFileLocks.get("dent")).isEmpty();
+    }
+
+    @Test
+    void shouldMaintainStatistics() {
+      index.get(repository);
+      FileLock takenOver = new FileLock("src/test.md", "", "dent", Instant.ofEpochMilli(30000));
+
+      index.locked("id-1", takenOver);
+
+      assertThat(statistics.getTotal()).isEqualTo(1);
+      assertThat(statistics.getTopUsers(10))
+        .extracting(LockStatistics.UserCount::getUserId)
+        .containsExactly("dent");
+
+      index.invalidate("id-1");
+
+      assertThat(statistics.getTotal()).isZero();
+      assertThat(statistics.getRepositoryCounts()).isEmpty();
+    }
+
+    @Test
+    void shouldMeasureLockCount() {
+      index.get(repository);
+      index.locked("id-1", new FileLock("src/other.md", "", "dent", Instant.ofEpochMilli(20000)));
+
+      assertThat(meterRegistry.get(FileLockMetrics.LOCKS).gauge().value()).isEqualTo(2);
+      assertThat(meterRegistry.get(FileLockMetrics.OPERATIONS).tag("operation", FileLockMetrics.LOAD).timer().count()).isEqualTo(1);
+    }
+  }
+}
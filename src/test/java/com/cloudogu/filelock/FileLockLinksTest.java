@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.junit.jupiter.api.Test;
+import sonia.scm.repository.Repository;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileLockLinksTest {
+
+  private final Repository repository = new Repository("id-1", "git", "hitchhiker", "HeartOfGold");
+  private final FileLockLinks links = FileLockLinks.of(new RestApiLinks(URI.create("/scm/api/")), repository);
+
+  @Test
+  void shouldAppendPlainPath() {
+    assertThat(links.lockFile("README.md")).isEqualTo("/scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/README.md");
+  }
+
+  @Test
+  void shouldEscapePath() {
+    assertThat(links.lockFile("src/my file;1%.md")).isEqualTo("/scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/src%2Fmy%20file%3B1%25.md");
+  }
+
+  @Test
+  void shouldEscapeNonAsciiCharacters() {
+    assertThat(links.lockFile("docs/Über.md")).isEqualTo("/scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/docs%2F%C3%9Cber.md");
+  }
+
+  @Test
+  void shouldEscapePlusAndPercent() {
+    assertThat(links.lockFile("c++/100%+1.md")).isEqualTo("/scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/c%2B%2B%2F100%25%2B1.md");
+  }
+
+  @Test
+  void shouldDecodeToOriginalPath() {
+    for (String path : List.of("docs/Über ä.md", "c++/100%+1.md", "a;b=c/x?y#z.md", "日本/ファイル.psd", "%2F/%25.md")) {
+      assertThat(URI.create(links.lockFile(path)).getPath()).isEqualTo("/scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock/" + path);
+    }
+  }
+
+  @Test
+  void shouldCreateLockAndDownloadLink() {
+    assertThat(links.lockAndDownload("assets/ship.obj", null)).isEqualTo("/scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/assets%2Fship.obj");
+  }
+
+  @Test
+  void shouldAppendRevisionToLockAndDownloadLink() {
+    assertThat(links.lockAndDownload("assets/ship.obj", "feature/engine"))
+      .isEqualTo("/scm/api/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/assets%2Fship.obj?revision=feature%2Fengine");
+  }
+}
@@ -35,9 +35,12 @@ import sonia.scm.user.UserDisplayManager;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith({ShiroExtension.class, MockitoExtension.class})
@@ -71,4 +74,25 @@ class FileLockMapperTest {
     assertThat(dto.getPath()).isEqualTo(fileObject.getPath());
     assertThat(dto.getLinks().getLinkBy("unlock").get().getHref()).isEqualTo("scm/api/v2/file-lock/hitchhiker/42Puzzle/lock/src%2Ftest.md");
   }
+
+  @Test
+  @SubjectAware(value = "trillian")
+  void shouldResolveEachUserOnlyOnce() {
+    when(userDisplayManager.get("trillian")).thenReturn(Optional.of(DisplayUser.from(new User("trillian", "Tricia McMillan", null))));
+    when(userDisplayManager.get("dent")).thenReturn(Optional.empty());
+
+    List<FileLockDto> dtos = mapper.mapAll(repository, List.of(
+      new FileLock("src/a.md", "", "trillian", Instant.ofEpochMilli(10000)),
+      new FileLock("src/b.md", "", "trillian", Instant.ofEpochMilli(10000)),
+      new FileLock("src/c.md", "", "dent", Instant.ofEpochMilli(10000)),
+      new FileLock("src/d.md", "", "dent", Instant.ofEpochMilli(10000))
+    ));
+
+    assertThat(dtos).extracting(FileLockDto::getUsername)
+      .containsExactly("Tricia McMillan", "Tricia McMillan", "dent", "dent");
+    assertThat(dtos).extracting(FileLockDto::isOwned)
+      .containsExactly(true, true, false, false);
+    verify(userDisplayManager, times(1)).get("trillian");
+    verify(userDisplayManager, times(1)).get("dent");
+  }
 }
@@ -16,31 +16,57 @@
 
 package com.cloudogu.filelock;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.github.sdorra.jse.ShiroExtension;
 import org.github.sdorra.jse.SubjectAware;
 import org.jboss.resteasy.mock.MockHttpRequest;
 import org.jboss.resteasy.mock.MockHttpResponse;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.api.CatCommandBuilder;
+import sonia.scm.repository.api.FileLock;
 import sonia.scm.repository.api.FileLockCommandBuilder;
+import sonia.scm.repository.api.FileLockedException;
 import sonia.scm.repository.api.LockCommandResult;
 import sonia.scm.repository.api.RepositoryService;
 import sonia.scm.repository.api.RepositoryServiceFactory;
 import sonia.scm.repository.api.UnlockCommandResult;
 import sonia.scm.web.RestDispatcher;
 
+import jakarta.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith({MockitoExtension.class, ShiroExtension.class})
@@ -55,6 +81,17 @@ class FileLockResourceTest {
   private RepositoryService service;
   @Mock
   private FileLockCommandBuilder lockCommandBuilder;
+  @Mock
+  private RepositoryManager repositoryManager;
+  @Mock
+  private FileLockIndex index;
+  @Mock
+  private FileLockMapper mapper;
+  @Mock
+  private FileLockBroadcaster broadcaster;
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  @Spy
+  private FileLockMetrics metrics = new FileLockMetrics(meterRegistry);
   @InjectMocks
   private FileLockResource resource;
 
@@ -66,8 +103,8 @@ class FileLockResourceTest {
     dispatcher = new RestDispatcher();
     dispatcher.addSingletonResource(resource);
 
-    when(serviceFactory.create(repository.getNamespaceAndName())).thenReturn(service);
-    when(service.getRepository()).thenReturn(repository);
+    lenient().when(serviceFactory.create(repository.getNamespaceAndName())).thenReturn(service);
+    lenient().when(service.getRepository()).thenReturn(repository);
     lenient().when(service.getLockCommand()).thenReturn(lockCommandBuilder);
   }
 
@@ -105,6 +142,219 @@ class FileLockResourceTest {
     dispatcher.invoke(request, response);
 
     assertThat(response.getStatus()).isEqualTo(204);
+    verify(lockCommandBuilder, never()).status(any());
+    assertThat(meterRegistry.get(FileLockMetrics.OPERATIONS).tag("operation", FileLockMetrics.LOCK).timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldLockNormalizedPath() throws URISyntaxException {
+    FileLockCommandBuilder.InnerLockCommandBuilder innerLockCommandBuilder = mock(FileLockCommandBuilder.InnerLockCommandBuilder.class, RETURNS_DEEP_STUBS);
+    when(lockCommandBuilder.lock("src/myFile")).thenReturn(innerLockCommandBuilder);
+    when(innerLockCommandBuilder.execute()).thenReturn(new LockCommandResult(true));
+
+    dispatcher.invoke(MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock/%2Fsrc%2F%2FmyFile"), response);
+
+    assertThat(response.getStatus()).isEqualTo(204);
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldReturnConflictIfCoreRejectsLock() throws URISyntaxException {
+    FileLock unknownLock = new FileLock("src/myFile", "", "dent", Instant.ofEpochMilli(10000));
+    when(mapper.mapAll(repository, List.of(unknownLock))).thenReturn(List.of(new FileLockDto("dent", Instant.ofEpochMilli(10000), "src/myFile", false)));
+    FileLockCommandBuilder.InnerLockCommandBuilder innerLockCommandBuilder = mock(FileLockCommandBuilder.InnerLockCommandBuilder.class);
+    when(lockCommandBuilder.lock("src/myFile")).thenReturn(innerLockCommandBuilder);
+    when(innerLockCommandBuilder.execute()).thenThrow(new FileLockedException(repository.getNamespaceAndName(), unknownLock));
+
+    dispatcher.invoke(MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock/src%2FmyFile"), response);
+
+    assertThat(response.getStatus()).isEqualTo(409);
+    assertThat(response.getContentAsString()).contains("\"path\":\"src/myFile\"");
+    verify(index).locked("id-1", unknownLock);
+    assertThat(meterRegistry.get(FileLockMetrics.CONFLICTS).counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldNotLockFileInDirectoryLockedByOtherUser() throws URISyntaxException {
+    FileLock directoryLock = new FileLock("src/", "", "dent", Instant.ofEpochMilli(10000));
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(directoryLock))));
+    when(mapper.mapAll(repository, List.of(directoryLock))).thenReturn(List.of(new FileLockDto("dent", Instant.ofEpochMilli(10000), "src/", false)));
+    MockHttpRequest request = MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock/src%2FmyFile");
+
+    dispatcher.invoke(request, response);
+
+    assertThat(response.getStatus()).isEqualTo(409);
+    assertThat(response.getContentAsString()).contains("\"path\":\"src/\"");
+    verify(lockCommandBuilder, never()).lock(any());
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldNotLockFileInDirectoryLockedByCurrentUser() throws URISyntaxException {
+    FileLock directoryLock = new FileLock("src/", "", "trillian", Instant.ofEpochMilli(10000));
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(directoryLock))));
+
+    dispatcher.invoke(MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock/src%2FmyFile"), response);
+
+    assertThat(response.getStatus()).isEqualTo(204);
+    verify(lockCommandBuilder, never()).lock(any());
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldLockAndDownloadFile() throws URISyntaxException, IOException {
+    CatCommandBuilder catCommand = mock(CatCommandBuilder.class);
+    when(service.getCatCommand()).thenReturn(catCommand);
+    when(catCommand.getStream("assets/ship.obj")).thenReturn(new ByteArrayInputStream("spaceship".getBytes(StandardCharsets.UTF_8)));
+    FileLockCommandBuilder.InnerLockCommandBuilder innerLockCommandBuilder = mock(FileLockCommandBuilder.InnerLockCommandBuilder.class, RETURNS_DEEP_STUBS);
+    when(lockCommandBuilder.lock("assets/ship.obj")).thenReturn(innerLockCommandBuilder);
+    when(innerLockCommandBuilder.execute()).thenReturn(new LockCommandResult(true));
+
+    dispatcher.invoke(MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/assets%2Fship.obj"), response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString()).isEqualTo("spaceship");
+    assertThat(response.getOutputHeaders().getFirst("Content-Disposition")).isEqualTo("attachment; filename*=UTF-8''ship.obj");
+    verify(service).close();
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldDownloadRequestedRevision() throws URISyntaxException, IOException {
+    CatCommandBuilder catCommand = mock(CatCommandBuilder.class);
+    when(service.getCatCommand()).thenReturn(catCommand);
+    when(catCommand.getStream("assets/ship.obj")).thenReturn(new ByteArrayInputStream("old spaceship".getBytes(StandardCharsets.UTF_8)));
+    FileLockCommandBuilder.InnerLockCommandBuilder innerLockCommandBuilder = mock(FileLockCommandBuilder.InnerLockCommandBuilder.class, RETURNS_DEEP_STUBS);
+    when(lockCommandBuilder.lock("assets/ship.obj")).thenReturn(innerLockCommandBuilder);
+    when(innerLockCommandBuilder.execute()).thenReturn(new LockCommandResult(true));
+
+    dispatcher.invoke(MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/assets%2Fship.obj?revision=feature%2Fengine"), response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString()).isEqualTo("old spaceship");
+    verify(catCommand).setRevision("feature/engine");
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldCloseContentIfCoreRejectsLockForDownload() throws URISyntaxException, IOException {
+    CatCommandBuilder catCommand = mock(CatCommandBuilder.class);
+    InputStream content = mock(InputStream.class);
+    when(service.getCatCommand()).thenReturn(catCommand);
+    when(catCommand.getStream("assets/ship.obj")).thenReturn(content);
+    FileLock unknownLock = new FileLock("assets/ship.obj", "", "dent", Instant.ofEpochMilli(10000));
+    when(mapper.mapAll(repository, List.of(unknownLock))).thenReturn(List.of(new FileLockDto("dent", Instant.ofEpochMilli(10000), "assets/ship.obj", false)));
+    FileLockCommandBuilder.InnerLockCommandBuilder innerLockCommandBuilder = mock(FileLockCommandBuilder.InnerLockCommandBuilder.class);
+    when(lockCommandBuilder.lock("assets/ship.obj")).thenReturn(innerLockCommandBuilder);
+    when(innerLockCommandBuilder.execute()).thenThrow(new FileLockedException(repository.getNamespaceAndName(), unknownLock));
+
+    dispatcher.invoke(MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/assets%2Fship.obj"), response);
+
+    assertThat(response.getStatus()).isEqualTo(409);
+    verify(content).close();
+    verify(service).close();
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldCloseContentIfLockFails() throws URISyntaxException, IOException {
+    CatCommandBuilder catCommand = mock(CatCommandBuilder.class);
+    InputStream content = mock(InputStream.class);
+    when(service.getCatCommand()).thenReturn(catCommand);
+    when(catCommand.getStream("assets/ship.obj")).thenReturn(content);
+    when(lockCommandBuilder.lock("assets/ship.obj")).thenThrow(new IllegalStateException("store not available"));
+
+    dispatcher.invoke(MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/assets%2Fship.obj"), response);
+
+    assertThat(response.getStatus()).isEqualTo(500);
+    verify(content).close();
+    verify(service).close();
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldNotDownloadFileLockedByOtherUser() throws URISyntaxException {
+    FileLock foreignLock = new FileLock("assets/ship.obj", "", "dent", Instant.ofEpochMilli(10000));
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(foreignLock))));
+    when(mapper.mapAll(repository, List.of(foreignLock))).thenReturn(List.of(new FileLockDto("dent", Instant.ofEpochMilli(10000), "assets/ship.obj", false)));
+
+    dispatcher.invoke(MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock-and-download/assets%2Fship.obj"), response);
+
+    assertThat(response.getStatus()).isEqualTo(409);
+    assertThat(response.getContentAsString()).contains("\"path\":\"assets/ship.obj\"");
+    verify(service, never()).getCatCommand();
+    verify(lockCommandBuilder, never()).lock(any());
+    verify(service).close();
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldNotLockDirectoryWithFilesLockedByOtherUser() throws URISyntaxException {
+    FileLock fileLock = new FileLock("src/deep/myFile", "", "dent", Instant.ofEpochMilli(10000));
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(fileLock))));
+    when(mapper.mapAll(repository, List.of(fileLock))).thenReturn(List.of(new FileLockDto("dent", Instant.ofEpochMilli(10000), "src/deep/myFile", false)));
+    MockHttpRequest request = MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/lock/src%2F");
+
+    dispatcher.invoke(request, response);
+
+    assertThat(response.getStatus()).isEqualTo(409);
+    verify(lockCommandBuilder, never()).lock(any());
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldLockMultipleFilesAndReturnConflicts() throws URISyntaxException {
+    FileLock foreignLock = new FileLock("src/locked", "", "dent", Instant.ofEpochMilli(10000));
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(foreignLock))));
+    when(mapper.mapAll(repository, List.of(foreignLock))).thenReturn(List.of(new FileLockDto("dent", Instant.ofEpochMilli(10000), "src/locked", false)));
+    FileLockCommandBuilder.InnerLockCommandBuilder innerLockCommandBuilder = mock(FileLockCommandBuilder.InnerLockCommandBuilder.class, RETURNS_DEEP_STUBS);
+    when(lockCommandBuilder.lock("src/free")).thenReturn(innerLockCommandBuilder);
+    when(innerLockCommandBuilder.execute()).thenReturn(new LockCommandResult(true));
+    MockHttpRequest request = MockHttpRequest.post(
+      String.format(
+        "/v2/file-lock/%s/%s/locks",
+        repository.getNamespace(),
+        repository.getName()
+      )
+    )
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"paths\":[\"src/free\",\"src/locked\"]}".getBytes());
+
+    dispatcher.invoke(request, response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString())
+      .contains("\"locked\":[\"src/free\"]")
+      .contains("\"path\":\"src/locked\"");
+    verify(lockCommandBuilder, never()).lock("src/locked");
+    verify(lockCommandBuilder, never()).status(any());
+    assertThat(meterRegistry.get(FileLockMetrics.CONFLICTS).counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldReturnConflictIfCoreRejectsLockOfBatch() throws URISyntaxException {
+    FileLock unknownLock = new FileLock("src/raced", "", "dent", Instant.ofEpochMilli(10000));
+    when(mapper.mapAll(repository, List.of(unknownLock))).thenReturn(List.of(new FileLockDto("dent", Instant.ofEpochMilli(10000), "src/raced", false)));
+    FileLockCommandBuilder.InnerLockCommandBuilder racedLockCommandBuilder = mock(FileLockCommandBuilder.InnerLockCommandBuilder.class);
+    when(lockCommandBuilder.lock("src/raced")).thenReturn(racedLockCommandBuilder);
+    when(racedLockCommandBuilder.execute()).thenThrow(new FileLockedException(repository.getNamespaceAndName(), unknownLock));
+    FileLockCommandBuilder.InnerLockCommandBuilder freeLockCommandBuilder = mock(FileLockCommandBuilder.InnerLockCommandBuilder.class);
+    when(lockCommandBuilder.lock("src/free")).thenReturn(freeLockCommandBuilder);
+    when(freeLockCommandBuilder.execute()).thenReturn(new LockCommandResult(true));
+    MockHttpRequest request = MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/locks")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"paths\":[\"src/raced\",\"src/free\"]}".getBytes());
+
+    dispatcher.invoke(request, response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString())
+      .contains("\"locked\":[\"src/free\"]")
+      .contains("\"path\":\"src/raced\"");
+    verify(index).locked("id-1", unknownLock);
   }
 
   @Test
@@ -141,5 +391,213 @@ class FileLockResourceTest {
     dispatcher.invoke(request, response);
 
     assertThat(response.getStatus()).isEqualTo(204);
+    verify(index).unlocked("id-1", "src/myFile");
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldGetAllLocksFromIndex() throws URISyntaxException {
+    FileLock fileLock = new FileLock("src/myFile", "", "trillian", Instant.ofEpochMilli(10000));
+    when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(fileLock))));
+    when(mapper.mapAll(repository, List.of(fileLock))).thenReturn(List.of(new FileLockDto("trillian", Instant.ofEpochMilli(10000), "src/myFile", true)));
+    MockHttpRequest request = MockHttpRequest.get(
+      String.format(
+        "/v2/file-lock/%s/%s",
+        repository.getNamespace(),
+        repository.getName()
+      )
+    );
+
+    dispatcher.invoke(request, response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString()).contains("\"path\":\"src/myFile\"");
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldUnlockMultipleFiles() throws URISyntaxException {
+    FileLockCommandBuilder.InnerUnlockCommandBuilder innerUnlockCommandBuilder = mock(FileLockCommandBuilder.InnerUnlockCommandBuilder.class, RETURNS_DEEP_STUBS);
+    when(lockCommandBuilder.unlock(any())).thenReturn(innerUnlockCommandBuilder);
+    when(innerUnlockCommandBuilder.force(true)).thenReturn(innerUnlockCommandBuilder);
+    when(innerUnlockCommandBuilder.execute()).thenReturn(new UnlockCommandResult(true));
+    MockHttpRequest request = MockHttpRequest.post(
+      String.format(
+        "/v2/file-lock/%s/%s/unlocks",
+        repository.getNamespace(),
+        repository.getName()
+      )
+    )
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"paths\":[\"src/a\",\"src/b\"]}".getBytes());
+
+    dispatcher.invoke(request, response);
+
+    assertThat(response.getStatus()).isEqualTo(204);
+    verify(lockCommandBuilder).unlock("src/a");
+    verify(lockCommandBuilder).unlock("src/b");
+    verify(index).unlocked("id-1", "src/a");
+    verify(index).unlocked("id-1", "src/b");
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldReturnNotModifiedForMatchingEntityTag() throws URISyntaxException {
+    when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of())));
+    when(index.getVersion("id-1")).thenReturn(42L);
+
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold"), response);
+    assertThat(response.getStatus()).isEqualTo(200);
+    String entityTag = response.getOutputHeaders().getFirst("ETag").toString();
+
+    MockHttpResponse secondResponse = new MockHttpResponse();
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold").header("If-None-Match", entityTag), secondResponse);
+
+    assertThat(secondResponse.getStatus()).isEqualTo(304);
+    verify(index, times(1)).get(repository);
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldReturnLocksIfEntityTagChanged() throws URISyntaxException {
+    when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of())));
+    when(index.getVersion("id-1")).thenReturn(42L, 43L);
+
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold"), response);
+    String entityTag = response.getOutputHeaders().getFirst("ETag").toString();
+
+    MockHttpResponse secondResponse = new MockHttpResponse();
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold").header("If-None-Match", entityTag), secondResponse);
+
+    assertThat(secondResponse.getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldReturnLockStatusOfDirectory() throws URISyntaxException {
+    FileLock directoryLock = new FileLock("assets/", "1", "dent", Instant.ofEpochMilli(10000));
+    FileLock textureLock = new FileLock("assets/textures/wall.png", "2", "trillian", Instant.ofEpochMilli(20000));
+    when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(directoryLock, textureLock))));
+    when(mapper.map(repository, directoryLock)).thenReturn(new FileLockDto("dent", Instant.ofEpochMilli(10000), "assets/", false));
+    when(mapper.mapAll(repository, Map.of("wall.png", textureLock)))
+      .thenReturn(Map.of("wall.png", new FileLockDto("trillian", Instant.ofEpochMilli(20000), "assets/textures/wall.png", true)));
+
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold/status?dir=assets/textures"), response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getOutputHeaders().getFirst("ETag")).isNotNull();
+    assertThat(response.getContentAsString())
+      .contains("\"directory\":\"assets/textures\"")
+      .contains("\"wall.png\":{")
+      .contains("\"path\":\"assets/textures/wall.png\"")
+      .contains("\"coveringLock\":{")
+      .contains("\"path\":\"assets/\"");
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldExportLocksAsNdjson() throws URISyntaxException {
+    when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(
+      new FileLock("src/a", "1", "trillian", Instant.ofEpochMilli(10000)),
+      new FileLock("src/b", "2", "dent", Instant.ofEpochMilli(20000))
+    ))));
+
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold/export"), response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString().split("\n"))
+      .containsExactlyInAnyOrder(
+        "{\"path\":\"src/a\",\"id\":\"1\",\"userId\":\"trillian\",\"timestamp\":\"1970-01-01T00:00:10Z\"}",
+        "{\"path\":\"src/b\",\"id\":\"2\",\"userId\":\"dent\",\"timestamp\":\"1970-01-01T00:00:20Z\"}"
+      );
+  }
+
+  @Test
+  @SubjectAware(permissions = "repository:push:id-1")
+  void shouldReturnOnlyConflictingLocks() throws URISyntaxException {
+    FileLock conflictingLock = new FileLock("src/a", "", "dent", Instant.ofEpochMilli(10000));
+    when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(
+      conflictingLock,
+      new FileLock("src/b", "", "dent", Instant.ofEpochMilli(10000))
+    ))));
+    when(mapper.mapAll(repository, List.of(conflictingLock))).thenReturn(List.of(new FileLockDto("dent", Instant.ofEpochMilli(10000), "src/a", false)));
+    MockHttpRequest request = MockHttpRequest.post("/v2/file-lock/hitchhiker/HeartOfGold/conflicts")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"paths\":[\"src/a\",\"src/c\"]}".getBytes());
+
+    dispatcher.invoke(request, response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString())
+      .contains("\"path\":\"src/a\"")
+      .doesNotContain("src/b");
+  }
+
+  @Nested
+  @SubjectAware(permissions = "repository:push:id-1")
+  class GetAllWithParameters {
+
+    @BeforeEach
+    void mockLocks() {
+      when(repositoryManager.get(repository.getNamespaceAndName())).thenReturn(repository);
+      when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(
+        new FileLock("src/b", "", "trillian", Instant.ofEpochMilli(30000)),
+        new FileLock("src/a", "", "dent", Instant.ofEpochMilli(20000)),
+        new FileLock("docs/c", "", "trillian", Instant.ofEpochMilli(10000))
+      ))));
+      when(mapper.mapAll(eq(repository), anyCollection())).thenAnswer(invocation -> {
+        Collection<FileLock> fileLocks = invocation.getArgument(1);
+        return fileLocks.stream()
+          .map(fileLock -> new FileLockDto(fileLock.getUserId(), fileLock.getTimestamp(), fileLock.getPath(), false))
+          .collect(Collectors.toList());
+      });
+    }
+
+    @Test
+    void shouldReturnRequestedPage() throws URISyntaxException, IOException {
+      MockHttpRequest request = MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold?page=1&pageSize=1&sortBy=timestamp&desc=true");
+
+      dispatcher.invoke(request, response);
+
+      assertThat(response.getStatus()).isEqualTo(200);
+      JsonNode json = new ObjectMapper().readTree(response.getContentAsString());
+      assertThat(json.path("page").asInt()).isEqualTo(1);
+      assertThat(json.path("pageTotal").asInt()).isEqualTo(3);
+      assertThat(json.path("_embedded").path("fileLocks")).hasSize(1);
+      assertThat(json.path("_embedded").path("fileLocks").get(0).path("path").asText()).isEqualTo("src/a");
+      assertThat(json.path("_links").has("prev")).isTrue();
+      assertThat(json.path("_links").has("next")).isTrue();
+      verify(mapper).mapAll(eq(repository), argThat(fileLocks -> fileLocks.size() == 1));
+    }
+
+    @Test
+    void shouldReturnEmptyPageForHugePageSize() throws URISyntaxException, IOException {
+      MockHttpRequest request = MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold?page=1&pageSize=" + Integer.MAX_VALUE);
+
+      dispatcher.invoke(request, response);
+
+      assertThat(response.getStatus()).isEqualTo(200);
+      JsonNode json = new ObjectMapper().readTree(response.getContentAsString());
+      assertThat(json.path("pageTotal").asInt()).isEqualTo(1);
+      assertThat(json.path("_embedded").path("fileLocks")).isEmpty();
+    }
+
+    @Test
+    void shouldFilterByPathPrefixAndOwner() throws URISyntaxException, IOException {
+      MockHttpRequest request = MockHttpRequest.get("/v2/file-lock/hitchhiker/HeartOfGold?pathPrefix=src%2F&owner=trillian");
+
+      dispatcher.invoke(request, response);
+
+      assertThat(response.getStatus()).isEqualTo(200);
+      JsonNode json = new ObjectMapper().readTree(response.getContentAsString());
+      assertThat(json.path("_embedded").path("fileLocks")).hasSize(1);
+      assertThat(json.path("_embedded").path("fileLocks").get(0).path("path").asText()).isEqualTo("src/b");
+    }
   }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.github.sdorra.jse.ShiroExtension;
+import org.github.sdorra.jse.SubjectAware;
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.jboss.resteasy.mock.MockHttpResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.web.RestDispatcher;
+
+import java.net.URISyntaxException;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({MockitoExtension.class, ShiroExtension.class})
+class FileLockStatisticsResourceTest {
+
+  private final Repository heartOfGold = new Repository("id-1", "git", "hitchhiker", "HeartOfGold");
+  private final Repository puzzle = new Repository("id-2", "git", "hitchhiker", "puzzle42");
+
+  @Mock
+  private RepositoryManager repositoryManager;
+
+  private final LockStatistics statistics = new LockStatistics();
+  private RestDispatcher dispatcher;
+  private final MockHttpResponse response = new MockHttpResponse();
+
+  @BeforeEach
+  void initResource() {
+    dispatcher = new RestDispatcher();
+    dispatcher.addSingletonResource(new FileLockStatisticsResource(statistics, repositoryManager));
+  }
+
+  @Test
+  @SubjectAware(value = "trillian", permissions = "fileLock:read")
+  void shouldReturnStatistics() throws URISyntaxException {
+    statistics.added("id-1", new FileLock("src/a.psd", "", "trillian", Instant.ofEpochMilli(20000)));
+    statistics.added("id-1", new FileLock("src/b.psd", "", "dent", Instant.ofEpochMilli(10000)));
+    statistics.added("id-2", new FileLock("src/c.psd", "", "trillian", Instant.ofEpochMilli(30000)));
+    when(repositoryManager.get("id-1")).thenReturn(heartOfGold);
+    when(repositoryManager.get("id-2")).thenReturn(puzzle);
+
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/statistics"), response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString())
+      .contains("\"total\":3")
+      .contains("{\"namespace\":\"hitchhiker\",\"name\":\"HeartOfGold\",\"count\":2}")
+      .contains("\"topLockers\":[{\"username\":\"trillian\",\"count\":2},{\"username\":\"dent\",\"count\":1}]")
+      .contains("\"oldestLocks\":[{\"namespace\":\"hitchhiker\",\"name\":\"HeartOfGold\",\"path\":\"src/b.psd\"")
+      .contains("/v2/file-lock/statistics");
+  }
+
+  @Test
+  @SubjectAware(value = "trillian")
+  void shouldNotReturnStatisticsWithoutPermission() throws URISyntaxException {
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/statistics"), response);
+
+    assertThat(response.getStatus()).isEqualTo(403);
+  }
+}
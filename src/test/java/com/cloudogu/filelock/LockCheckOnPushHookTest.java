@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.github.sdorra.jse.ShiroExtension;
+import org.github.sdorra.jse.SubjectAware;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Added;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.Modifications;
+import sonia.scm.repository.Modified;
+import sonia.scm.repository.PreReceiveRepositoryHookEvent;
+import sonia.scm.repository.Removed;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.Command;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.HookContext;
+import sonia.scm.repository.api.HookFeature;
+import sonia.scm.repository.api.ModificationsCommandBuilder;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({MockitoExtension.class, ShiroExtension.class})
+@SubjectAware("trillian")
+class LockCheckOnPushHookTest {
+
+  private final Repository repository = new Repository("id-1", "git", "hitchhiker", "HeartOfGold");
+
+  @Mock
+  private RepositoryServiceFactory serviceFactory;
+  @Mock
+  private RepositoryService service;
+  @Mock
+  private ModificationsCommandBuilder modificationsCommand;
+  @Mock
+  private FileLockIndex index;
+  @Mock
+  private PreReceiveRepositoryHookEvent event;
+  @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+  private HookContext context;
+
+  private LockCheckOnPushHook hook;
+
+  @BeforeEach
+  void init() {
+    hook = new LockCheckOnPushHook(serviceFactory, index);
+    when(event.getRepository()).thenReturn(repository);
+    when(event.getContext()).thenReturn(context);
+    when(context.isFeatureSupported(HookFeature.CHANGESET_PROVIDER)).thenReturn(true);
+  }
+
+  @Test
+  void shouldNotReadModificationsWithoutLocks() {
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of())));
+
+    hook.handle(event);
+
+    verify(serviceFactory, never()).create(any(Repository.class));
+  }
+
+  @Nested
+  class WithChangesets {
+
+    @BeforeEach
+    void mockModifications() throws IOException {
+      when(context.getChangesetProvider().getChangesets()).thenReturn(List.of(new Changeset("1", 0L, null), new Changeset("2", 0L, null)));
+      when(serviceFactory.create(repository)).thenReturn(service);
+      when(service.isSupported(Command.MODIFICATIONS)).thenReturn(true);
+      when(service.getModificationsCommand()).thenReturn(modificationsCommand);
+      when(modificationsCommand.revision("1")).thenReturn(modificationsCommand);
+      when(modificationsCommand.revision("2")).thenReturn(modificationsCommand);
+      when(modificationsCommand.getModifications()).thenReturn(
+        new Modifications("1", new Modified("src/own.psd"), new Added("assets/ship.obj")),
+        new Modifications("2", new Modified("docs/readme.md"), new Removed("src/foreign.psd"))
+      );
+    }
+
+    @Test
+    void shouldAcceptChangesOfOwnAndUnlockedFiles() {
+      when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(lock("src/own.psd", "trillian")))));
+
+      hook.handle(event);
+
+      verify(context.getMessageProvider(), never()).sendError(any());
+    }
+
+    @Test
+    void shouldRejectWithAllConflicts() {
+      when(context.isFeatureSupported(HookFeature.MESSAGE_PROVIDER)).thenReturn(true);
+      when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(
+        lock("src/own.psd", "trillian"),
+        lock("src/foreign.psd", "dent"),
+        lock("assets/", "marvin")
+      ))));
+
+      assertThatThrownBy(() -> hook.handle(event))
+        .isInstanceOf(FilesLockedException.class)
+        .satisfies(exception -> assertThat(exception.getMessage())
+          .contains("assets/ship.obj (locked by marvin)")
+          .contains("src/foreign.psd (locked by dent)")
+          .doesNotContain("src/own.psd"));
+      verify(context.getMessageProvider()).sendError("assets/ship.obj is locked by marvin");
+      verify(context.getMessageProvider()).sendError("src/foreign.psd is locked by dent");
+    }
+
+    @Test
+    void shouldRejectChangesOfAllLockedFilesWithoutPrincipal() {
+      Subject subject = mock(Subject.class);
+      ThreadContext.bind(subject);
+      when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(lock("src/own.psd", "trillian")))));
+
+      assertThatThrownBy(() -> hook.handle(event))
+        .isInstanceOf(FilesLockedException.class)
+        .satisfies(exception -> assertThat(exception.getMessage()).contains("src/own.psd (locked by trillian)"));
+    }
+  }
+
+  @Test
+  void shouldLimitConflictsInMessage() {
+    Map<String, FileLock> conflicts = new TreeMap<>();
+    for (int i = 0; i < 1000; i++) {
+      conflicts.put("assets/" + i + ".psd", lock("assets/", "dent"));
+    }
+
+    FilesLockedException exception = new FilesLockedException(repository, conflicts);
+
+    assertThat(exception.getMessage())
+      .startsWith("push changes 1000 files locked by other users: ")
+      .endsWith(", and " + (1000 - FilesLockedException.MAX_LISTED_CONFLICTS) + " more")
+      .hasSizeLessThan(1000);
+  }
+
+  private FileLock lock(String path, String userId) {
+    return new FileLock(path, "", userId, Instant.ofEpochMilli(10000));
+  }
+}
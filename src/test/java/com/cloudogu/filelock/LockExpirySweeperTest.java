@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.FileLockCommandBuilder;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LockExpirySweeperTest {
+
+  private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+  private final Repository repository = new Repository("id-1", "git", "hitchhiker", "HeartOfGold");
+  private final FileLock expiredLock = new FileLock("src/old.psd", "", "trillian", NOW.minus(Duration.ofHours(25)));
+  private final FileLock freshLock = new FileLock("src/new.psd", "", "trillian", NOW.minus(Duration.ofHours(1)));
+
+  @Mock
+  private RepositoryManager repositoryManager;
+  @Mock
+  private RepositoryConfigStore configStore;
+  @Mock
+  private RepositoryServiceFactory serviceFactory;
+  @Mock
+  private RepositoryService service;
+  @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+  private FileLockCommandBuilder lockCommandBuilder;
+  @Mock
+  private FileLockIndex index;
+
+  private final RepositoryConfig config = new RepositoryConfig();
+
+  private LockExpirySweeper sweeper;
+
+  @BeforeEach
+  void init() {
+    sweeper = new LockExpirySweeper(repositoryManager, configStore, serviceFactory, index, Clock.fixed(NOW, ZoneOffset.UTC));
+    config.setLockTtlHours(24);
+    lenient().when(configStore.getConfig(repository)).thenReturn(config);
+    lenient().when(repositoryManager.get("id-1")).thenReturn(repository);
+    lenient().when(repositoryManager.getAll()).thenReturn(List.of(repository));
+    lenient().when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(expiredLock, freshLock))));
+    lenient().when(serviceFactory.create(repository)).thenReturn(service);
+    lenient().when(service.getLockCommand()).thenReturn(lockCommandBuilder);
+  }
+
+  @Test
+  void shouldReleaseOnlyExpiredLocks() {
+    sweeper.sweep();
+
+    verify(lockCommandBuilder.unlock("src/old.psd").force(true)).execute();
+    verify(index).unlocked("id-1", "src/old.psd");
+    verify(index, never()).unlocked("id-1", "src/new.psd");
+  }
+
+  @Test
+  void shouldNotScheduleLocksWithoutTtl() {
+    config.setLockTtlHours(0);
+
+    sweeper.sweep();
+
+    verify(index, never()).get(repository);
+    verify(index, never()).unlocked(anyString(), anyString());
+  }
+
+  @Test
+  void shouldSkipLocksWhichHaveBeenRenewed() {
+    sweeper.locked("id-1", expiredLock);
+    FileLock renewedLock = new FileLock("src/old.psd", "", "trillian", NOW);
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(renewedLock))));
+
+    sweeper.sweep();
+
+    verify(index, never()).unlocked(anyString(), anyString());
+  }
+
+  @Test
+  void shouldKeepLocksIfTtlHasBeenRaised() {
+    sweeper.locked("id-1", expiredLock);
+    config.setLockTtlHours(48);
+
+    sweeper.sweep();
+
+    verify(index, never()).unlocked(anyString(), anyString());
+  }
+
+  @Test
+  void shouldScheduleExistingLocksOnlyOnce() {
+    sweeper.sweep();
+    sweeper.sweep();
+
+    verify(repositoryManager, times(1)).getAll();
+  }
+
+  @Test
+  void shouldRetryFailedReleaseWithoutLosingOtherLocks() {
+    Repository otherRepository = new Repository("id-2", "git", "hitchhiker", "Bistromath");
+    FileLock otherLock = new FileLock("docs/old.pdf", "", "dent", NOW.minus(Duration.ofHours(30)));
+    RepositoryService otherService = mock(RepositoryService.class);
+    FileLockCommandBuilder otherLockCommandBuilder = mock(FileLockCommandBuilder.class, Answers.RETURNS_DEEP_STUBS);
+    when(repositoryManager.getAll()).thenReturn(List.of(repository, otherRepository));
+    when(repositoryManager.get("id-2")).thenReturn(otherRepository);
+    when(configStore.getConfig(otherRepository)).thenReturn(config);
+    when(index.get(otherRepository)).thenReturn(Optional.of(new RepositoryLocks(List.of(otherLock))));
+    when(serviceFactory.create(otherRepository)).thenReturn(otherService);
+    when(otherService.getLockCommand()).thenReturn(otherLockCommandBuilder);
+    when(lockCommandBuilder.unlock("src/old.psd").force(true).execute())
+      .thenThrow(new IllegalStateException("store not available"))
+      .thenReturn(null);
+
+    sweeper.sweep();
+
+    verify(index, never()).unlocked("id-1", "src/old.psd");
+    verify(index).unlocked("id-2", "docs/old.pdf");
+
+    sweeper.sweep();
+
+    verify(index).unlocked("id-1", "src/old.psd");
+  }
+
+  @Test
+  void shouldReleaseEachLockOnlyOnce() {
+    sweeper.locked("id-1", expiredLock);
+    sweeper.locked("id-1", expiredLock);
+
+    sweeper.sweep();
+    sweeper.sweep();
+
+    verify(index).unlocked("id-1", "src/old.psd");
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockablePathsTest {
+
+  @Test
+  void shouldMatchAllPathsWithoutPatterns() {
+    LockablePaths paths = LockablePaths.compile(List.of(" "));
+
+    assertThat(paths.isLockable("src/main.c")).isTrue();
+    assertThat(paths.isLockableDirectory("src")).isTrue();
+  }
+
+  @Test
+  void shouldMatchInAnyDirectory() {
+    LockablePaths paths = LockablePaths.compile(List.of("**/*.psd"));
+
+    assertThat(paths.isLockable("logo.psd")).isTrue();
+    assertThat(paths.isLockable("assets/images/logo.psd")).isTrue();
+    assertThat(paths.isLockable("assets/images/logo.png")).isFalse();
+    assertThat(paths.isLockable("assets/logo.psd.bak")).isFalse();
+  }
+
+  @Test
+  void shouldMatchSingleSegmentOnly() {
+    LockablePaths paths = LockablePaths.compile(List.of("assets/*.fbx"));
+
+    assertThat(paths.isLockable("assets/tree.fbx")).isTrue();
+    assertThat(paths.isLockable("assets/models/tree.fbx")).isFalse();
+  }
+
+  @Test
+  void shouldCombinePatterns() {
+    LockablePaths paths = LockablePaths.compile(List.of("assets/**/*.{fbx,blend}", "/docs/manual-?.pdf"));
+
+    assertThat(paths.isLockable("assets/models/tree.fbx")).isTrue();
+    assertThat(paths.isLockable("assets/tree.blend")).isTrue();
+    assertThat(paths.isLockable("docs/manual-1.pdf")).isTrue();
+    assertThat(paths.isLockable("docs/manual-12.pdf")).isFalse();
+    assertThat(paths.isLockable("src/tree.fbx")).isFalse();
+  }
+
+  @Test
+  void shouldMatchDirectoriesWhichMayContainLockableFiles() {
+    LockablePaths paths = LockablePaths.compile(List.of("assets/**/*.fbx"));
+
+    assertThat(paths.isLockableDirectory("assets")).isTrue();
+    assertThat(paths.isLockableDirectory("assets/models")).isTrue();
+    assertThat(paths.isLockableDirectory("src")).isFalse();
+  }
+
+  @Test
+  void shouldEscapeRegularExpressions() {
+    LockablePaths paths = LockablePaths.compile(List.of("a+b/(c).txt"));
+
+    assertThat(paths.isLockable("a+b/(c).txt")).isTrue();
+    assertThat(paths.isLockable("aab/(c)xtxt")).isFalse();
+  }
+}
@@ -23,17 +23,22 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import sonia.scm.repository.Repository;
+import sonia.scm.cache.MapCacheManager;
 import sonia.scm.repository.RepositoryTestData;
 import sonia.scm.store.InMemoryConfigurationStoreFactory;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(ShiroExtension.class)
 class RepositoryConfigStoreTest {
 
   private static final Repository REPOSITORY = RepositoryTestData.create42Puzzle();
-  private final RepositoryConfigStore store = new RepositoryConfigStore(new InMemoryConfigurationStoreFactory());
+  private final InMemoryConfigurationStoreFactory storeFactory = spy(new InMemoryConfigurationStoreFactory());
+  private final RepositoryConfigStore store = new RepositoryConfigStore(storeFactory, new MapCacheManager());
 
   static {
     REPOSITORY.setId("id-1");
@@ -59,6 +64,47 @@ class RepositoryConfigStoreTest {
 
       assertThat(store.getConfig(REPOSITORY).isEnabled()).isFalse();
     }
+
+    @Test
+    void shouldReadConfigOnlyOnce() {
+      store.getConfig(REPOSITORY);
+      store.getConfig(REPOSITORY);
+
+      verify(storeFactory, times(1)).withType(RepositoryConfig.class);
+    }
+
+    @Test
+    void shouldInvalidateCachedConfigOnUpdate() {
+      store.getConfig(REPOSITORY);
+      RepositoryConfig repositoryConfig = new RepositoryConfig();
+      repositoryConfig.setEnabled(false);
+
+      store.updateConfig(REPOSITORY, repositoryConfig);
+
+      assertThat(store.getConfig(REPOSITORY).isEnabled()).isFalse();
+    }
+
+    @Test
+    void shouldNotChangeCachedConfig() {
+      RepositoryConfig config = store.getConfig(REPOSITORY);
+      config.setEnabled(false);
+      config.getLockablePatterns().add("**/*.psd");
+
+      RepositoryConfig cached = store.getConfig(REPOSITORY);
+
+      assertThat(cached.isEnabled()).isTrue();
+      assertThat(cached.getLockablePatterns()).isEmpty();
+    }
+
+    @Test
+    void shouldReadConfigAgainAfterInvalidation() {
+      store.getConfig(REPOSITORY);
+
+      store.invalidate("id-1");
+      store.getConfig(REPOSITORY);
+
+      verify(storeFactory, times(2)).withType(RepositoryConfig.class);
+    }
   }
 
   @Test
@@ -16,12 +16,13 @@
 
 package com.cloudogu.filelock;
 
+import com.google.inject.util.Providers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.github.sdorra.jse.ShiroExtension;
 import org.github.sdorra.jse.SubjectAware;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.api.v2.resources.HalAppender;
@@ -35,9 +36,12 @@ import sonia.scm.repository.api.RepositoryServiceFactory;
 import jakarta.inject.Provider;
 import java.net.URI;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -59,25 +63,51 @@ class RepositoryLinkEnricherTest {
   @Mock
   private HalAppender appender;
 
-  @InjectMocks
   private RepositoryLinkEnricher enricher;
 
   @BeforeEach
   void init() {
+    enricher = new RepositoryLinkEnricher(Providers.of(new FileLockRequestContext(scmPathInfoStoreProvider)), new FileLockSupport(serviceFactory), configStore, new FileLockMetrics(new SimpleMeterRegistry()));
     ScmPathInfoStore scmPathInfoStore = new ScmPathInfoStore();
     scmPathInfoStore.set(() -> URI.create("scm/api"));
-    when(scmPathInfoStoreProvider.get()).thenReturn(scmPathInfoStore);
+    lenient().when(scmPathInfoStoreProvider.get()).thenReturn(scmPathInfoStore);
   }
 
   @Test
-  void shouldNotEnrichLink() {
+  void shouldNotEnrichLinkWithoutPermission() {
+    enricher.enrich(HalEnricherContext.of(repository), appender);
+
+    verify(appender, never()).appendLink(anyString(), anyString());
+    verify(serviceFactory, never()).create(any(Repository.class));
+  }
+
+  @Test
+  @SubjectAware(permissions = {"repository:push:id-1", "repository:configureFileLock:id-1"})
+  void shouldNotEnrichLinkIfLockCommandNotSupported() {
+    when(configStore.getConfig(repository)).thenReturn(new RepositoryConfig());
     when(serviceFactory.create(repository)).thenReturn(service);
     when(service.isSupported(Command.FILE_LOCK)).thenReturn(false);
+
     enricher.enrich(HalEnricherContext.of(repository), appender);
 
     verify(appender, never()).appendLink(anyString(), anyString());
   }
 
+  @Test
+  @SubjectAware(permissions = "repository:push:*")
+  void shouldCheckLockCommandSupportOncePerRepositoryType() {
+    Repository otherRepository = new Repository("id-2", "git", "hitchhiker", "Restaurant");
+    when(configStore.getConfig(any(Repository.class))).thenReturn(new RepositoryConfig());
+    when(serviceFactory.create(repository)).thenReturn(service);
+    when(service.isSupported(Command.FILE_LOCK)).thenReturn(true);
+
+    enricher.enrich(HalEnricherContext.of(repository), appender);
+    enricher.enrich(HalEnricherContext.of(otherRepository), appender);
+
+    verify(serviceFactory, times(1)).create(any(Repository.class));
+    verify(appender).appendLink("fileLocks", "scm/api/v2/file-lock/hitchhiker/Restaurant");
+  }
+
   @Test
   @SubjectAware(permissions = "repository:push:id-1")
   void shouldNotEnrichConfigLinkIfNotPermitted() {
@@ -101,6 +131,11 @@ class RepositoryLinkEnricherTest {
     enricher.enrich(HalEnricherContext.of(repository), appender);
 
     verify(appender).appendLink("fileLocks", "scm/api/v2/file-lock/hitchhiker/HeartOfGold");
+    verify(appender).appendLink("lockFiles", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/locks");
+    verify(appender).appendLink("unlockFiles", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/unlocks");
+    verify(appender).appendLink("fileLockConflicts", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/conflicts");
+    verify(appender).appendLink("fileLockEvents", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/events");
+    verify(appender).appendLink("fileLockStatus", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/status");
     verify(appender).appendLink("fileLockConfig", "scm/api/v2/file-lock/hitchhiker/HeartOfGold/config");
   }
 
@@ -109,12 +144,11 @@ class RepositoryLinkEnricherTest {
   void shouldNotEnrichLinkIfConfigDisabled() {
     RepositoryConfig repositoryConfig = new RepositoryConfig();
     repositoryConfig.setEnabled(false);
-    when(serviceFactory.create(repository)).thenReturn(service);
-    when(service.isSupported(Command.FILE_LOCK)).thenReturn(true);
     when(configStore.getConfig(repository)).thenReturn(repositoryConfig);
 
     enricher.enrich(HalEnricherContext.of(repository), appender);
 
     verify(appender, never()).appendLink(anyString(), anyString());
+    verify(serviceFactory, never()).create(any(Repository.class));
   }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.junit.jupiter.api.Test;
+import sonia.scm.repository.api.FileLock;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class RepositoryLocksTest {
+
+  private final FileLock directoryLock = lock("assets/");
+  private final FileLock nestedDirectoryLock = lock("assets/textures/");
+  private final FileLock fileLock = lock("src/main.c");
+
+  @Test
+  void shouldNormalizeDirectoryLockPath() {
+    assertThat(RepositoryLocks.directoryLockPath("assets")).isEqualTo("assets/");
+    assertThat(RepositoryLocks.directoryLockPath("/assets/")).isEqualTo("assets/");
+  }
+
+  @Test
+  void shouldNormalizePath() {
+    assertThat(RepositoryLocks.normalize("/src//main.c")).isEqualTo("src/main.c");
+    assertThat(RepositoryLocks.normalize("//assets///")).isEqualTo("assets/");
+    assertThat(RepositoryLocks.normalize("/")).isEqualTo("/");
+  }
+
+  @Test
+  void shouldKeepOneEntryForEquivalentPaths() {
+    RepositoryLocks locks = new RepositoryLocks(List.of(fileLock));
+    FileLock sameFile = lock("/src//main.c");
+
+    assertThat(locks.put(sameFile)).contains(fileLock);
+
+    assertThat(locks.size()).isEqualTo(1);
+    assertThat(locks.countBelow("src/")).isEqualTo(1);
+    assertThat(locks.get("src/main.c")).contains(sameFile);
+
+    assertThat(locks.remove("src/main.c")).contains(sameFile);
+
+    assertThat(locks.size()).isZero();
+    assertThat(locks.countBelow("src/")).isZero();
+    assertThat(locks.getCovering("src/main.c")).isEmpty();
+  }
+
+  @Test
+  void shouldFindLockOfFile() {
+    RepositoryLocks locks = new RepositoryLocks(List.of(fileLock, directoryLock));
+
+    assertThat(locks.getCovering("src/main.c")).contains(fileLock);
+    assertThat(locks.getCovering("src/main.h")).isEmpty();
+    assertThat(locks.getCovering("src")).isEmpty();
+  }
+
+  @Test
+  void shouldFindOutermostDirectoryLock() {
+    RepositoryLocks locks = new RepositoryLocks(List.of(directoryLock, nestedDirectoryLock));
+
+    assertThat(locks.getCovering("assets/textures/wall.png")).contains(directoryLock);
+    assertThat(locks.getCovering("assets/textures/")).contains(directoryLock);
+    assertThat(locks.getCovering("assets/")).contains(directoryLock);
+  }
+
+  @Test
+  void shouldNotCoverFileWithSameNameAsLockedDirectory() {
+    RepositoryLocks locks = new RepositoryLocks(List.of(directoryLock));
+
+    assertThat(locks.getCovering("assets")).isEmpty();
+    assertThat(locks.getCovering("assetsAndMore/file")).isEmpty();
+  }
+
+  @Test
+  void shouldReturnLocksBelowDirectory() {
+    FileLock textureLock = lock("assets/textures/wall.png");
+    RepositoryLocks locks = new RepositoryLocks(List.of(directoryLock, nestedDirectoryLock, textureLock, fileLock));
+
+    assertThat(locks.getBelow("assets/")).containsExactlyInAnyOrder(nestedDirectoryLock, textureLock);
+    assertThat(locks.getBelow("docs/")).isEmpty();
+  }
+
+  @Test
+  void shouldReturnLocksOfChildren() {
+    FileLock textureLock = lock("assets/textures/wall.png");
+    FileLock modelLock = lock("assets/ship.obj");
+    RepositoryLocks locks = new RepositoryLocks(List.of(directoryLock, nestedDirectoryLock, textureLock, modelLock));
+
+    assertThat(locks.getChildren("assets/")).containsOnly(
+      entry("textures", nestedDirectoryLock),
+      entry("ship.obj", modelLock)
+    );
+    assertThat(locks.getChildren("")).containsOnly(entry("assets", directoryLock));
+    assertThat(locks.getChildren("docs/")).isEmpty();
+  }
+
+  @Test
+  void shouldCountLocksBelowDirectory() {
+    FileLock textureLock = lock("assets/textures/wall.png");
+    RepositoryLocks locks = new RepositoryLocks(List.of(directoryLock, nestedDirectoryLock, textureLock, fileLock));
+
+    assertThat(locks.countBelow("assets/")).isEqualTo(2);
+    assertThat(locks.countBelow("")).isEqualTo(4);
+
+    locks.put(lock("assets/textures/wall.png"));
+    locks.remove("assets/textures/");
+
+    assertThat(locks.countBelow("assets/")).isEqualTo(1);
+    assertThat(locks.countBelow("assets/textures/")).isEqualTo(1);
+    assertThat(locks.countBelow("docs/")).isZero();
+  }
+
+  @Test
+  void shouldRemoveDirectoryLock() {
+    RepositoryLocks locks = new RepositoryLocks(List.of(directoryLock, fileLock));
+
+    locks.remove("assets/");
+
+    assertThat(locks.getCovering("assets/wall.png")).isEmpty();
+    assertThat(locks.getBelow("")).containsExactly(fileLock);
+    assertThat(locks.size()).isEqualTo(1);
+  }
+
+  private FileLock lock(String path) {
+    return new FileLock(path, "", "trillian", Instant.ofEpochMilli(10000));
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.github.sdorra.jse.ShiroExtension;
+import org.github.sdorra.jse.SubjectAware;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Added;
+import sonia.scm.repository.Changeset;
+import sonia.scm.repository.Modifications;
+import sonia.scm.repository.Modified;
+import sonia.scm.repository.PostReceiveRepositoryHookEvent;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.api.Command;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.repository.api.FileLockCommandBuilder;
+import sonia.scm.repository.api.HookContext;
+import sonia.scm.repository.api.HookFeature;
+import sonia.scm.repository.api.ModificationsCommandBuilder;
+import sonia.scm.repository.api.RepositoryService;
+import sonia.scm.repository.api.RepositoryServiceFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({MockitoExtension.class, ShiroExtension.class})
+@SubjectAware("trillian")
+class UnlockOnPushHookTest {
+
+  private final Repository repository = new Repository("id-1", "git", "hitchhiker", "HeartOfGold");
+
+  @Mock
+  private RepositoryConfigStore configStore;
+  @Mock
+  private RepositoryServiceFactory serviceFactory;
+  @Mock
+  private RepositoryService service;
+  @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+  private FileLockCommandBuilder lockCommandBuilder;
+  @Mock
+  private ModificationsCommandBuilder modificationsCommand;
+  @Mock
+  private FileLockIndex index;
+  @Mock
+  private PostReceiveRepositoryHookEvent event;
+  @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+  private HookContext context;
+
+  private final RepositoryConfig config = new RepositoryConfig();
+  private UnlockOnPushHook hook;
+
+  @BeforeEach
+  void init() {
+    hook = new UnlockOnPushHook(configStore, serviceFactory, index);
+    when(event.getRepository()).thenReturn(repository);
+    when(configStore.getConfig(repository)).thenReturn(config);
+  }
+
+  @Test
+  void shouldNotReleaseLocksIfDisabled() {
+    hook.handle(event);
+
+    verify(index, never()).get(repository);
+    verify(serviceFactory, never()).create(any(Repository.class));
+  }
+
+  @Test
+  void shouldNotReadModificationsWithoutOwnLocks() {
+    config.setUnlockOnPush(true);
+    when(event.getContext()).thenReturn(context);
+    when(context.isFeatureSupported(HookFeature.CHANGESET_PROVIDER)).thenReturn(true);
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(lock("src/a.psd", "dent")))));
+
+    hook.handle(event);
+
+    verify(serviceFactory, never()).create(any(Repository.class));
+  }
+
+  @Test
+  void shouldReleaseOwnLocksOfChangedFiles() throws IOException {
+    config.setUnlockOnPush(true);
+    when(event.getContext()).thenReturn(context);
+    when(context.isFeatureSupported(HookFeature.CHANGESET_PROVIDER)).thenReturn(true);
+    when(context.getChangesetProvider().getChangesets()).thenReturn(List.of(new Changeset("1", 0L, null)));
+    when(serviceFactory.create(repository)).thenReturn(service);
+    when(service.isSupported(Command.MODIFICATIONS)).thenReturn(true);
+    when(service.getLockCommand()).thenReturn(lockCommandBuilder);
+    when(service.getModificationsCommand()).thenReturn(modificationsCommand);
+    when(modificationsCommand.revision("1")).thenReturn(modificationsCommand);
+    when(modificationsCommand.getModifications()).thenReturn(new Modifications("1", new Modified("src/a.psd"), new Added("src/new.txt")));
+    when(index.get(repository)).thenReturn(Optional.of(new RepositoryLocks(List.of(
+      lock("src/a.psd", "trillian"),
+      lock("src/b.psd", "trillian"),
+      lock("src/", "trillian")
+    ))));
+
+    hook.handle(event);
+
+    verify(lockCommandBuilder).unlock("src/a.psd");
+    verify(lockCommandBuilder, never()).unlock("src/b.psd");
+    verify(lockCommandBuilder, never()).unlock("src/");
+    verify(index).unlocked("id-1", "src/a.psd");
+  }
+
+  private FileLock lock(String path, String userId) {
+    return new FileLock(path, "", userId, Instant.ofEpochMilli(10000));
+  }
+}
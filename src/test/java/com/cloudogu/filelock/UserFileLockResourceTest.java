@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package com.cloudogu.filelock;
+
+import org.github.sdorra.jse.ShiroExtension;
+import org.github.sdorra.jse.SubjectAware;
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.jboss.resteasy.mock.MockHttpResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryManager;
+import sonia.scm.repository.api.FileLock;
+import sonia.scm.web.RestDispatcher;
+
+import java.net.URISyntaxException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({MockitoExtension.class, ShiroExtension.class})
+@SubjectAware(value = "trillian", permissions = "repository:push:id-1")
+class UserFileLockResourceTest {
+
+  private final Repository heartOfGold = new Repository("id-1", "git", "hitchhiker", "HeartOfGold");
+  private final Repository puzzle = new Repository("id-2", "git", "hitchhiker", "puzzle42");
+  private final FileLock ownLock = new FileLock("src/a.psd", "", "trillian", Instant.ofEpochMilli(10000));
+
+  @Mock
+  private RepositoryManager repositoryManager;
+  @Mock
+  private FileLockMapper mapper;
+
+  private final UserFileLocks userFileLocks = new UserFileLocks();
+  private RestDispatcher dispatcher;
+  private final MockHttpResponse response = new MockHttpResponse();
+
+  @BeforeEach
+  void initResource() {
+    dispatcher = new RestDispatcher();
+    dispatcher.addSingletonResource(new UserFileLockResource(userFileLocks, repositoryManager, mapper));
+  }
+
+  @Test
+  void shouldReturnOwnLocksOfPermittedRepositories() throws URISyntaxException {
+    userFileLocks.initialized(List.of());
+    userFileLocks.added("id-1", ownLock);
+    userFileLocks.added("id-1", new FileLock("src/b.psd", "", "dent", Instant.ofEpochMilli(10000)));
+    userFileLocks.added("id-2", new FileLock("src/c.psd", "", "trillian", Instant.ofEpochMilli(10000)));
+    when(repositoryManager.get("id-1")).thenReturn(heartOfGold);
+    when(repositoryManager.get("id-2")).thenReturn(puzzle);
+    when(mapper.mapAll(heartOfGold, List.of(ownLock))).thenReturn(List.of(new FileLockDto("trillian", Instant.ofEpochMilli(10000), "src/a.psd", true)));
+
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/me"), response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString())
+      .contains("\"name\":\"HeartOfGold\"")
+      .contains("\"path\":\"src/a.psd\"")
+      .contains("/v2/file-lock/hitchhiker/HeartOfGold")
+      .doesNotContain("puzzle42")
+      .doesNotContain("src/b.psd");
+  }
+
+  @Test
+  void shouldReportIncompleteLocksWithoutLoadingRepositories() throws URISyntaxException {
+    userFileLocks.initialized(List.of("id-2"));
+
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/me"), response);
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString()).contains("\"complete\":false");
+    verify(repositoryManager, never()).getAll();
+  }
+
+  @Test
+  void shouldReportCompleteLocks() throws URISyntaxException {
+    userFileLocks.initialized(List.of());
+
+    dispatcher.invoke(MockHttpRequest.get("/v2/file-lock/me"), response);
+
+    assertThat(response.getContentAsString()).contains("\"complete\":true");
+  }
+}